@@ -1,12 +1,11 @@
 package oleborn.client;
 
-import oleborn.network.TCPConnection;
+import oleborn.network.Protocol;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.IOException;
 
 /**
  * Класс ClientWindow представляет графический интерфейс клиента для общения через TCP-соединение.
@@ -17,11 +16,13 @@ public class ClientWindow extends JFrame implements ActionListener {
 
     private final JTextArea textArea = new JTextArea(); // Основная текстовая область для отображения сообщений
     private final JTextField fieldInput = new JTextField(); // Поле для ввода сообщений
-    private TCPConnection connection; // TCP соединение
     private JScrollPane scrollPane; // Область прокрутки для текстовой области
 
     private final ClientWindowSettings settings; // Настройки окна клиента
     private final TCPConnectionListenerImpl connectionListener; // Слушатель TCP-соединения
+    private final ReconnectManager reconnectManager; // Поддержка соединения и очередь сообщений без связи
+
+    private static final String SEARCH_COMMAND = "/search "; // Команда поиска по истории чата
 
     /**
      * Конструктор ClientWindow инициализирует графический интерфейс и подключается к серверу.
@@ -53,6 +54,7 @@ public class ClientWindow extends JFrame implements ActionListener {
         add(settings.getPanel(), BorderLayout.NORTH); // Добавляем панель настроек в верхнюю часть окна
 
         connectionListener = new TCPConnectionListenerImpl(this); // Создаем слушателя соединения
+        reconnectManager = new ReconnectManager(connectionListener, settings::setConnectionState); // Состояние выводится в панели настроек
 
         fieldInput.addActionListener(this); // Привязка обработчика событий для текстового поля
 
@@ -64,23 +66,29 @@ public class ClientWindow extends JFrame implements ActionListener {
 
     /**
      * Подключение к серверу по указанным IP и порту.
-     * Если текущее соединение существует, оно разрывается, а затем создается новое TCP-соединение.
+     * Текущее соединение разрывается, а новое устанавливается в фоне; при потере связи
+     * клиент переподключается сам.
      *
      * @param ip   IP-адрес сервера
      * @param port Порт сервера
      */
     public void connectToServer(String ip, int port) {
-        if (connection != null) connection.disconnect(); // Если соединение существует, разрываем его
-        try {
-            connection = new TCPConnection(connectionListener, ip, port); // Инициализация нового соединения с сервером
-        } catch (IOException e) {
-            printMessage("Исключение: " + e.getMessage()); // Отображаем сообщение об ошибке при подключении
-        }
+        reconnectManager.connect(ip, port);
+    }
+
+    /**
+     * Возвращает менеджер переподключения, которому слушатель сообщает о событиях соединения.
+     *
+     * @return менеджер переподключения
+     */
+    public ReconnectManager getReconnectManager() {
+        return reconnectManager;
     }
 
     /**
      * Обрабатывает событие ввода текста в поле ввода.
      * Если текст введен, он отправляется через TCP-соединение на сервер с указанием текущего ника.
+     * Текст, начинающийся с команды поиска, отправляется как поисковый запрос без ника.
      *
      * @param e Событие, связанное с действием (ввод текста и нажатие Enter)
      */
@@ -89,7 +97,11 @@ public class ClientWindow extends JFrame implements ActionListener {
         String message = fieldInput.getText(); // Получаем текст из поля ввода
         if (message.isEmpty()) return; // Если поле пустое, не отправляем сообщение
         fieldInput.setText(null); // Очищаем поле ввода
-        connection.sendString(settings.getNickname() + ": " + message); // Отправляем сообщение с текущим ником
+        if (message.startsWith(SEARCH_COMMAND)) {
+            reconnectManager.send(Protocol.SEARCH_REQUEST + message.substring(SEARCH_COMMAND.length())); // Поисковый запрос
+            return;
+        }
+        reconnectManager.send(settings.getNickname() + ": " + message); // Отправляем сообщение с текущим ником (без связи — в очередь)
     }
 
     /**
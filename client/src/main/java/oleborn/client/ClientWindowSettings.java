@@ -7,7 +7,7 @@ import java.awt.event.ActionEvent;
 /**
  * Класс ClientWindowSettings предоставляет панель настроек для клиента.
  * Он позволяет пользователю вводить никнейм, IP-адрес и порт для подключения к серверу.
- * Также он содержит кнопку "Connect", которая инициализирует подключение.
+ * Также он содержит кнопку "Connect", которая инициализирует подключение, и строку состояния подключения.
  */
 public class ClientWindowSettings {
     private final JPanel panel; // Панель настроек
@@ -15,6 +15,7 @@ public class ClientWindowSettings {
     private final JTextField fieldIp; // Поле для ввода IP-адреса
     private final JTextField fieldPort; // Поле для ввода порта
     private final JButton btnConnect; // Кнопка подключения
+    private final JLabel labelState; // Состояние подключения
 
     private final ClientWindow clientWindow; // Ссылка на главное окно клиента
 
@@ -38,6 +39,7 @@ public class ClientWindowSettings {
         fieldIp = new JTextField("127.0.0.1", 10); // Начальный IP
         fieldPort = new JTextField("8888", 5); // Начальный порт
         btnConnect = new JButton("Подключение"); // Кнопка подключения
+        labelState = new JLabel("Нет подключения"); // Начальное состояние
 
         // Добавление метки "Nickname"
         gbc.gridx = 0; // Колонка 0
@@ -73,6 +75,10 @@ public class ClientWindowSettings {
         gbc.gridwidth = 2; // Кнопка растягивается на всю ширину панели
         panel.add(btnConnect, gbc);
 
+        // Добавление строки состояния подключения
+        gbc.gridy = 4;
+        panel.add(labelState, gbc);
+
         // Обработчик события для кнопки подключения
         btnConnect.addActionListener(this::onConnect);
     }
@@ -96,6 +102,16 @@ public class ClientWindowSettings {
         clientWindow.connectToServer(getIp(), getPort()); // Подключение к серверу с указанными IP и портом
     }
 
+    /**
+     * Обновляет строку состояния подключения.
+     * Метод может вызываться из любого потока: обновление выполняется в потоке событий Swing.
+     *
+     * @param state текстовое описание состояния.
+     */
+    public void setConnectionState(String state) {
+        SwingUtilities.invokeLater(() -> labelState.setText(state));
+    }
+
     /**
      * Получает текущий введенный никнейм.
      *
@@ -0,0 +1,277 @@
+package oleborn.client;
+
+import oleborn.network.TCPConnection;
+import oleborn.network.TCPConnectionListener;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Класс ReconnectManager поддерживает соединение клиента с сервером.
+ * При потере связи он сам переподключается с экспоненциальной задержкой и случайным
+ * разбросом (jitter), чтобы после перезапуска сервера клиенты не возвращались
+ * одновременно. Сообщения, набранные без связи, ждут в ограниченной очереди и
+ * отправляются одной пачкой после переподключения. Соединение считается установленным
+ * только после подтверждения допуска сервером: при отказе задержка продолжает расти,
+ * а очередь сохраняется. Если сервер перед остановкой прислал подсказку о времени
+ * переподключения, первая попытка выполняется через указанное сервером время.
+ * Каждая попытка ограничена таймаутом подключения и помечена поколением: соединение,
+ * установленное попыткой до смены адреса пользователем, сразу разрывается.
+ */
+public class ReconnectManager {
+
+    private static final long BASE_DELAY_MILLIS = 500; // Задержка перед первой повторной попыткой
+    private static final long MAX_DELAY_MILLIS = 30_000; // Верхняя граница задержки
+    private static final int MAX_BACKOFF_SHIFT = 16; // Ограничение показателя степени, чтобы избежать переполнения
+    private static final int OFFLINE_QUEUE_LIMIT = 100; // Максимум сообщений, ожидающих отправки
+    private static final int CONNECT_TIMEOUT_MILLIS = 5_000; // Таймаут установки TCP-соединения одной попыткой
+
+    private final TCPConnectionListener listener; // Слушатель событий соединений текущего поколения
+    private final Consumer<String> stateListener; // Получатель текстового описания состояния
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "client-reconnect");
+        thread.setDaemon(true); // Поток переподключения не должен удерживать JVM
+        return thread;
+    }); // Планировщик попыток подключения
+    private final ArrayDeque<String> offlineQueue = new ArrayDeque<>(); // Сообщения, набранные без связи
+
+    private TCPConnection connection; // Текущее допущенное сервером соединение или null
+    private TCPConnection connecting; // Соединение, ожидающее подтверждения допуска, или null
+    private TCPConnection closing; // Соединение, которое сервер закрывает после подсказки, или null
+    private ScheduledFuture<?> pendingAttempt; // Запланированная попытка подключения
+    private String ip; // IP-адрес сервера
+    private int port; // Порт сервера
+    private int attempt; // Номер попытки с момента потери связи
+    private long generation; // Поколение подключения: увеличивается при смене адреса пользователем
+    private long hintedDelay = -1; // Задержка переподключения, подсказанная сервером, или -1
+
+    /**
+     * Конструктор ReconnectManager.
+     *
+     * @param listener      слушатель событий соединения.
+     * @param stateListener получатель описания состояния подключения для отображения.
+     */
+    public ReconnectManager(TCPConnectionListener listener, Consumer<String> stateListener) {
+        this.listener = listener;
+        this.stateListener = stateListener;
+    }
+
+    /**
+     * Подключение к серверу по указанию пользователя. Текущее соединение разрывается,
+     * отсчет задержек начинается заново, первая попытка выполняется сразу.
+     *
+     * @param ip   IP-адрес сервера.
+     * @param port порт сервера.
+     */
+    public void connect(String ip, int port) {
+        TCPConnection old;
+        synchronized (this) {
+            this.ip = ip;
+            this.port = port;
+            generation++; // Попытки и соединения прошлого поколения больше не учитываются
+            attempt = 0;
+            hintedDelay = -1;
+            if (pendingAttempt != null) pendingAttempt.cancel(false);
+            old = connection != null ? connection : connecting != null ? connecting : closing;
+            connection = null; // Отключение старого соединения не должно запускать переподключение
+            connecting = null;
+            closing = null;
+            schedule(0);
+        }
+        if (old != null) old.disconnect(); // Вне блокировки: соединение само вызывает onConnectionLost
+    }
+
+    /**
+     * Отправка сообщения. Без связи сообщение ставится в очередь; при переполнении
+     * очереди отбрасывается самое старое.
+     *
+     * @param message сообщение для отправки.
+     */
+    public void send(String message) {
+        TCPConnection current;
+        synchronized (this) {
+            current = connection;
+            if (current == null) {
+                if (offlineQueue.size() == OFFLINE_QUEUE_LIMIT) offlineQueue.pollFirst(); // Ограничение очереди
+                offlineQueue.addLast(message);
+                publishState("Нет связи, в очереди: " + offlineQueue.size());
+                return;
+            }
+        }
+        current.sendString(message); // Вне блокировки: при ошибке соединение вызывает onConnectionLost
+    }
+
+    /**
+     * Вызывается, когда соединение, установленное попыткой, готово. Соединение ожидает
+     * подтверждения допуска сервером.
+     *
+     * @param ready             готовое соединение.
+     * @param attemptGeneration поколение попытки, установившей соединение.
+     * @return false, если пользователь сменил адрес после начала попытки и соединение устарело.
+     */
+    private synchronized boolean onConnectionReady(TCPConnection ready, long attemptGeneration) {
+        if (attemptGeneration != generation) return false;
+        connecting = ready;
+        publishState("Ожидание ответа сервера " + ip + ":" + port);
+        return true;
+    }
+
+    /**
+     * Вызывается слушателем, когда сервер подтвердил допуск: сбрасывает задержку и отправляет очередь одной пачкой.
+     *
+     * @param admitted допущенное соединение.
+     */
+    public void onAdmitted(TCPConnection admitted) {
+        List<String> batch;
+        synchronized (this) {
+            if (admitted != connecting) return; // Соединение устарело
+            connecting = null;
+            connection = admitted;
+            attempt = 0;
+            publishState("Подключено к " + ip + ":" + port);
+            batch = new ArrayList<>(offlineQueue);
+            offlineQueue.clear();
+        }
+        if (!batch.isEmpty()) admitted.sendStrings(batch); // Накопленные сообщения уходят одной пачкой
+    }
+
+    /**
+     * Вызывается слушателем при разрыве соединения. Повторные уведомления и разрывы
+     * старых соединений игнорируются.
+     *
+     * @param lost разорванное соединение.
+     */
+    public synchronized void onConnectionLost(TCPConnection lost) {
+        if (lost != connection && lost != connecting && lost != closing) return; // Уже обработано или соединение устарело
+        connection = null;
+        connecting = null;
+        closing = null;
+        long delay = hintedDelay >= 0 ? hintedDelay : nextDelay(); // После отказа сервера задержка продолжает расти
+        hintedDelay = -1;
+        schedule(delay);
+    }
+
+    /**
+     * Вызывается слушателем, когда сервер сообщил, что скоро закроет соединение и через
+     * сколько миллисекунд к нему стоит переподключиться. Разброс задержки между клиентами
+     * задает сервер. Сервер уже не принимает новые сообщения по этому соединению, поэтому
+     * до переподключения они ставятся в очередь.
+     *
+     * @param current     соединение, по которому пришла подсказка.
+     * @param delayMillis задержка переподключения в миллисекундах.
+     */
+    public synchronized void onReconnectHint(TCPConnection current, long delayMillis) {
+        if (current != connection) return; // Подсказка по устаревшему соединению
+        hintedDelay = delayMillis;
+        closing = connection; // Соединение дочитывается до закрытия сервером
+        connection = null; // Новые сообщения идут в очередь и уйдут после переподключения
+        publishState("Сервер перезапускается, переподключение через " + delayMillis + " мс");
+    }
+
+    /**
+     * Вычисляет задержку следующей попытки: экспоненциальный рост с разбросом в верхней половине интервала.
+     *
+     * @return задержка в миллисекундах.
+     */
+    private long nextDelay() {
+        long cap = Math.min(MAX_DELAY_MILLIS, BASE_DELAY_MILLIS << Math.min(attempt, MAX_BACKOFF_SHIFT));
+        attempt++;
+        return cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1); // Разброс разводит клиентов во времени
+    }
+
+    /**
+     * Планирует попытку подключения текущего поколения.
+     *
+     * @param delayMillis задержка в миллисекундах.
+     */
+    private void schedule(long delayMillis) {
+        long scheduledGeneration = generation;
+        publishState(delayMillis == 0
+                ? "Подключение к " + ip + ":" + port + "..."
+                : "Переподключение через " + delayMillis + " мс (попытка " + attempt + ")");
+        pendingAttempt = scheduler.schedule(() -> tryConnect(scheduledGeneration), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Попытка подключения. Выполняется в потоке планировщика, чтобы не блокировать интерфейс;
+     * таймаут не дает недоступному узлу задержать следующие попытки на системный таймаут TCP.
+     *
+     * @param scheduledGeneration поколение, для которого запланирована попытка.
+     */
+    private void tryConnect(long scheduledGeneration) {
+        String targetIp;
+        int targetPort;
+        synchronized (this) {
+            if (scheduledGeneration != generation) return; // Пользователь сменил адрес
+            targetIp = ip;
+            targetPort = port;
+        }
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(targetIp, targetPort), CONNECT_TIMEOUT_MILLIS);
+            new TCPConnection(new AttemptListener(scheduledGeneration), socket); // Готовность придет через onConnectionReady
+        } catch (IOException e) {
+            try {
+                socket.close(); // Сокет неудачной попытки
+            } catch (IOException closeError) {
+                // Сокет и так не открыт
+            }
+            synchronized (this) {
+                if (scheduledGeneration == generation && connection == null && connecting == null) schedule(nextDelay());
+            }
+        }
+    }
+
+    private void publishState(String state) {
+        stateListener.accept(state);
+    }
+
+    /**
+     * Слушатель соединения одной попытки. Сообщает менеджеру поколение попытки и не передает
+     * события устаревшего соединения основному слушателю.
+     */
+    private final class AttemptListener implements TCPConnectionListener {
+
+        private final long attemptGeneration; // Поколение попытки
+        private volatile boolean stale; // Соединение устарело и разорвано
+
+        private AttemptListener(long attemptGeneration) {
+            this.attemptGeneration = attemptGeneration;
+        }
+
+        @Override
+        public void onConnectionReady(TCPConnection tcpConnection) {
+            if (!ReconnectManager.this.onConnectionReady(tcpConnection, attemptGeneration)) {
+                stale = true;
+                tcpConnection.disconnect(); // Соединение со старым адресом не нужно
+                return;
+            }
+            listener.onConnectionReady(tcpConnection);
+        }
+
+        @Override
+        public void onReceiveString(TCPConnection tcpConnection, String value) {
+            if (!stale) listener.onReceiveString(tcpConnection, value);
+        }
+
+        @Override
+        public void onConnectionDisconnect(TCPConnection tcpConnection) {
+            if (!stale) listener.onConnectionDisconnect(tcpConnection);
+        }
+
+        @Override
+        public void onConnectionException(TCPConnection tcpConnection, Exception e) {
+            if (!stale) listener.onConnectionException(tcpConnection, e);
+        }
+    }
+}
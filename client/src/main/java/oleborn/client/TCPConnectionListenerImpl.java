@@ -1,11 +1,19 @@
 package oleborn.client;
 
+import oleborn.network.Protocol;
 import oleborn.network.TCPConnection;
 import oleborn.network.TCPConnectionListener;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 public class TCPConnectionListenerImpl implements TCPConnectionListener {
 
     private final ClientWindow clientWindow; // Ссылка на основное окно
+    private final Set<String> online = new LinkedHashSet<>(); // Пользователи в сети по данным сервера
+    private boolean synced; // Первый снимок после подключения уже получен
 
     public TCPConnectionListenerImpl(ClientWindow clientWindow) {
         this.clientWindow = clientWindow;
@@ -14,20 +22,75 @@ public class TCPConnectionListenerImpl implements TCPConnectionListener {
     @Override
     public void onConnectionReady(TCPConnection connection) {
         clientWindow.printMessage("Подключение успешно осуществлено"); // Вывод сообщения при успешном подключении
+        synchronized (this) {
+            synced = false; // Первый снимок нового подключения выводится целиком
+        }
     }
 
     @Override
     public void onReceiveString(TCPConnection connection, String value) {
-        clientWindow.printMessage(value); // Вывод полученного сообщения
+        if (Protocol.isFrame(value, Protocol.WELCOME)) {
+            clientWindow.getReconnectManager().onAdmitted(connection); // Отправка сообщений, накопленных без связи
+        } else if (Protocol.isFrame(value, Protocol.REFUSED)) {
+            clientWindow.printMessage("Сервер отклонил подключение: " + value.substring(Protocol.REFUSED.length()));
+        } else if (Protocol.isFrame(value, Protocol.RECONNECT)) {
+            onReconnectHint(connection, value.substring(Protocol.RECONNECT.length()));
+        } else if (Protocol.isFrame(value, Protocol.PRESENCE_SNAPSHOT)) {
+            onPresenceSnapshot(Protocol.parseList(value, Protocol.PRESENCE_SNAPSHOT));
+        } else if (Protocol.isFrame(value, Protocol.PRESENCE_JOIN)) {
+            onPresenceJoin(Protocol.parseList(value, Protocol.PRESENCE_JOIN));
+        } else if (Protocol.isFrame(value, Protocol.PRESENCE_LEAVE)) {
+            onPresenceLeave(Protocol.parseList(value, Protocol.PRESENCE_LEAVE));
+        } else if (Protocol.isFrame(value, Protocol.SEARCH_RESULT)) {
+            clientWindow.printMessage("[поиск] " + value.substring(Protocol.SEARCH_RESULT.length()));
+        } else if (Protocol.isFrame(value, Protocol.SEARCH_DONE)) {
+            clientWindow.printMessage("[поиск] найдено: " + value.substring(Protocol.SEARCH_DONE.length()));
+        } else {
+            clientWindow.printMessage(Protocol.unescape(value)); // Вывод полученного сообщения чата
+        }
     }
 
     @Override
     public void onConnectionDisconnect(TCPConnection connection) {
         clientWindow.printMessage("Подключение прервано"); // Сообщение при отключении
+        clientWindow.getReconnectManager().onConnectionLost(connection); // Запуск переподключения
     }
 
     @Override
     public void onConnectionException(TCPConnection connection, Exception e) {
         clientWindow.printMessage("Исключение: " + e.getMessage()); // Сообщение при возникновении ошибки
     }
+
+    private void onReconnectHint(TCPConnection connection, String delay) {
+        try {
+            clientWindow.getReconnectManager().onReconnectHint(connection, Long.parseLong(delay.trim()));
+        } catch (NumberFormatException e) {
+            clientWindow.printMessage("Неверная подсказка переподключения: " + delay); // Обычная задержка останется в силе
+        }
+    }
+
+    private synchronized void onPresenceSnapshot(List<String> users) {
+        if (!synced) {
+            synced = true;
+            online.clear(); // Снимок полностью заменяет известный список
+            online.addAll(users);
+            clientWindow.printMessage("В сети (" + online.size() + "): " + String.join(", ", online));
+            return;
+        }
+        // Периодический снимок сверяет список: выводятся только расхождения из-за пропущенных дельт
+        List<String> left = new ArrayList<>(online);
+        left.removeAll(users);
+        onPresenceLeave(left);
+        onPresenceJoin(new ArrayList<>(users));
+    }
+
+    private synchronized void onPresenceJoin(List<String> users) {
+        users.removeIf(user -> !online.add(user)); // Уже известные пользователи не выводятся повторно
+        if (!users.isEmpty()) clientWindow.printMessage("Подключились: " + String.join(", ", users));
+    }
+
+    private synchronized void onPresenceLeave(List<String> users) {
+        users.removeIf(user -> !online.remove(user)); // Неизвестные пользователи не выводятся
+        if (!users.isEmpty()) clientWindow.printMessage("Отключились: " + String.join(", ", users));
+    }
 }
@@ -0,0 +1,33 @@
+package oleborn.network;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Событие JFR о закрытии соединения: время жизни соединения и итог его исходящей очереди.
+ * Длительность события — время закрытия сокета.
+ */
+@Name("oleborn.chat.ConnectionClose")
+@Label("Connection Close")
+@Category({"Chat", "Connection"})
+@Description("Закрытие соединения с клиентом")
+@StackTrace(false)
+final class ConnectionCloseEvent extends jdk.jfr.Event {
+
+    @Label("Remote Address")
+    String remoteAddress; // Адрес клиента в виде ip:port
+
+    @Label("Lifetime")
+    @Timespan(Timespan.NANOSECONDS)
+    long lifetime; // Время от создания соединения до закрытия
+
+    @Label("Sent")
+    long sent; // Сообщений отправлено в сокет
+
+    @Label("Dropped")
+    long dropped; // Сообщений отброшено из-за переполнения полос
+}
@@ -0,0 +1,48 @@
+package oleborn.network;
+
+/**
+ * Класс OutboundPolicy — неизменяемые параметры исходящей очереди соединения:
+ * емкость каждой полосы {@link Priority} и время задержки сброса буфера (linger),
+ * за которое подряд идущие сообщения собираются в одну запись в сокет.
+ * Соединение читает актуальную политику перед каждым раундом отправки, поэтому
+ * новая политика начинает действовать без перезапуска соединений.
+ */
+public final class OutboundPolicy {
+
+    /**
+     * Политика по умолчанию: емкости полос из {@link Priority}, сброс буфера без задержки.
+     */
+    public static final OutboundPolicy DEFAULT = new OutboundPolicy(
+            Priority.CONTROL.getCapacity(), Priority.CHAT.getCapacity(), Priority.BULK.getCapacity(), 0);
+
+    private final int[] capacities; // Емкость полос по приоритетам
+    private final long lingerMillis; // Задержка сброса буфера
+
+    /**
+     * Конструктор OutboundPolicy.
+     *
+     * @param controlCapacity емкость управляющей полосы.
+     * @param chatCapacity    емкость полосы чата.
+     * @param bulkCapacity    емкость полосы объемных ответов.
+     * @param lingerMillis    максимальная задержка сброса буфера в миллисекундах (0 — без задержки).
+     */
+    public OutboundPolicy(int controlCapacity, int chatCapacity, int bulkCapacity, long lingerMillis) {
+        this.capacities = new int[]{controlCapacity, chatCapacity, bulkCapacity}; // Порядок совпадает с Priority
+        this.lingerMillis = lingerMillis;
+    }
+
+    /**
+     * @param priority полоса.
+     * @return емкость полосы; сообщения сверх нее отбрасываются.
+     */
+    public int getCapacity(Priority priority) {
+        return capacities[priority.ordinal()];
+    }
+
+    /**
+     * @return максимальная задержка сброса буфера в миллисекундах.
+     */
+    public long getLingerMillis() {
+        return lingerMillis;
+    }
+}
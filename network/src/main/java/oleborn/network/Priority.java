@@ -0,0 +1,35 @@
+package oleborn.network;
+
+/**
+ * Перечисление Priority задает полосы исходящей очереди соединения.
+ * Управляющие кадры отправляются со строгим приоритетом, а чат и объемные
+ * ответы делят оставшуюся пропускную способность пропорционально весам.
+ */
+public enum Priority {
+
+    CONTROL(1024, 0), // Служебные уведомления и ответы на команды: всегда первыми
+    CHAT(4096, 4), // Сообщения чата
+    BULK(1024, 1); // Объемные ответы (результаты поиска и т.п.)
+
+    private final int capacity; // Емкость полосы по умолчанию
+    private final int weight; // Количество сообщений полосы за один раунд отправки
+
+    Priority(int capacity, int weight) {
+        this.capacity = capacity;
+        this.weight = weight;
+    }
+
+    /**
+     * @return емкость полосы по умолчанию; сообщения сверх нее отбрасываются.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return вес полосы при взвешенной отправке (для управляющей полосы не используется).
+     */
+    public int getWeight() {
+        return weight;
+    }
+}
@@ -0,0 +1,95 @@
+package oleborn.network;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Класс Protocol описывает служебные кадры, которыми обмениваются клиент и сервер
+ * поверх обычного строкового протокола. Служебный кадр — это строка, начинающаяся
+ * с известного префикса; всё остальное считается обычным сообщением чата.
+ * <p>
+ * Все префиксы начинаются с зарезервированного символа {@value #FRAME_MARK}. Сервер
+ * экранирует пересылаемые сообщения чата, начинающиеся с этого символа, удваивая его
+ * ({@link #escape(String)}), поэтому строка с одиночным {@value #FRAME_MARK} в начале
+ * может прийти клиенту только от самого сервера.
+ */
+public final class Protocol {
+
+    public static final String WELCOME = "@welcome"; // Сервер допустил подключение
+    public static final String REFUSED = "@refused "; // Сервер отклонил подключение, далее причина
+    public static final String RECONNECT = "@reconnect "; // Сервер перезапускается: переподключиться через N мс
+    public static final String PRESENCE_SNAPSHOT = "@presence= "; // Полный список пользователей в сети
+    public static final String PRESENCE_JOIN = "@presence+ "; // Пользователи, подключившиеся за окно агрегации
+    public static final String PRESENCE_LEAVE = "@presence- "; // Пользователи, отключившиеся за окно агрегации
+    public static final String SEARCH_REQUEST = "@search "; // Запрос клиента на поиск по истории
+    public static final String SEARCH_RESULT = "@found "; // Одно найденное сообщение
+    public static final String SEARCH_DONE = "@found. "; // Завершение ответа с количеством найденных сообщений
+
+    public static final String FRAME_MARK = "@"; // Зарезервированный первый символ служебных кадров
+
+    private static final String ESCAPED_MARK = FRAME_MARK + FRAME_MARK; // Экранированный символ в начале сообщения чата
+    private static final String LIST_SEPARATOR = ","; // Разделитель элементов списка внутри кадра
+
+    private Protocol() {
+    }
+
+    /**
+     * Формирует кадр из префикса и списка элементов.
+     *
+     * @param prefix префикс кадра.
+     * @param items  элементы списка.
+     * @return строка кадра, готовая к отправке.
+     */
+    public static String frame(String prefix, Collection<String> items) {
+        return prefix + String.join(LIST_SEPARATOR, items);
+    }
+
+    /**
+     * Проверяет, является ли строка кадром с указанным префиксом.
+     * Экранированное сообщение чата не совпадает ни с одним префиксом.
+     *
+     * @param message полученная строка.
+     * @param prefix  ожидаемый префикс.
+     * @return true, если строка начинается с префикса.
+     */
+    public static boolean isFrame(String message, String prefix) {
+        return message.startsWith(prefix);
+    }
+
+    /**
+     * Экранирует сообщение чата перед пересылкой: сообщение, начинающееся с
+     * {@value #FRAME_MARK}, получает еще один такой символ и не может быть принято за служебный кадр.
+     *
+     * @param message сообщение чата.
+     * @return сообщение, безопасное для пересылки.
+     */
+    public static String escape(String message) {
+        return message.startsWith(FRAME_MARK) ? FRAME_MARK + message : message;
+    }
+
+    /**
+     * Снимает экранирование с пересланного сообщения чата.
+     *
+     * @param message полученная строка, не являющаяся служебным кадром.
+     * @return исходное сообщение чата.
+     */
+    public static String unescape(String message) {
+        return message.startsWith(ESCAPED_MARK) ? message.substring(FRAME_MARK.length()) : message;
+    }
+
+    /**
+     * Разбирает список элементов из кадра.
+     *
+     * @param message полученная строка кадра.
+     * @param prefix  префикс кадра.
+     * @return список элементов (пустой, если кадр не содержит элементов).
+     */
+    public static List<String> parseList(String message, String prefix) {
+        List<String> items = new ArrayList<>();
+        for (String item : message.substring(prefix.length()).split(LIST_SEPARATOR)) {
+            if (!item.isEmpty()) items.add(item); // Пустые элементы появляются при пустом списке
+        }
+        return items;
+    }
+}
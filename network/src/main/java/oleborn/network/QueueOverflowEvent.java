@@ -0,0 +1,30 @@
+package oleborn.network;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR об отброшенном сообщении: полоса исходящей очереди соединения переполнена.
+ */
+@Name("oleborn.chat.QueueOverflow")
+@Label("Queue Overflow")
+@Category({"Chat", "Queue"})
+@Description("Сообщение отброшено из-за переполнения полосы исходящей очереди")
+@StackTrace(false)
+final class QueueOverflowEvent extends jdk.jfr.Event {
+
+    @Label("Remote Address")
+    String remoteAddress; // Адрес клиента в виде ip:port
+
+    @Label("Lane")
+    String lane; // Переполненная полоса
+
+    @Label("Capacity")
+    int capacity; // Емкость полосы на момент переполнения
+
+    @Label("Total Dropped")
+    long totalDropped; // Всего отброшено сообщений в соединении
+}
@@ -1,13 +1,25 @@
 package oleborn.network;
 
 import java.io.*;
+import java.net.InetAddress;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Класс TCPConnection представляет собой TCP-соединение с использованием сокетов.
  * Он управляет подключением, отправкой и приемом сообщений, а также отслеживает
  * события соединения через интерфейс TCPConnectionListener.
+ * <p>
+ * Исходящие сообщения не пишутся в сокет вызывающим потоком, а ставятся в полосы
+ * {@link Priority} и отправляются отдельным потоком записи: управляющая полоса
+ * обслуживается со строгим приоритетом, остальные — по весам. Поэтому медленный
+ * получатель не задерживает рассылку, а длинная очередь чата не задерживает служебные кадры.
  */
 public class TCPConnection {
 
@@ -15,6 +27,18 @@ public class TCPConnection {
     private Thread thread; // Поток для получения сообщений
     private final BufferedReader in; // Поток ввода для чтения сообщений
     private final BufferedWriter out; // Поток вывода для отправки сообщений
+    private final Thread writer; // Поток отправки сообщений из полос
+
+    private final Object lanesLock = new Object(); // Блокировка полос исходящей очереди
+    private final ArrayDeque<String>[] lanes; // Полосы исходящей очереди по приоритетам
+    private final AtomicLong dropped = new AtomicLong(); // Сообщения, отброшенные из-за переполнения полос
+    private final Supplier<OutboundPolicy> policy; // Источник актуальной политики исходящей очереди
+    private volatile boolean closed; // Соединение закрыто
+    private boolean finishing; // Исходящее направление закрывается: новые сообщения не принимаются (под блокировкой полос)
+    private long enqueued; // Сообщений принято в очередь (под блокировкой полос)
+    private long taken; // Сообщений забрано потоком записи (под блокировкой полос)
+    private long flushed; // Сообщений отправлено в сокет (под блокировкой полос)
+    private final long createdNanos = System.nanoTime(); // Время создания соединения
 
     private final TCPConnectionListener listener; // Слушатель для обработки событий соединения
 
@@ -40,13 +64,33 @@ public class TCPConnection {
      * @throws IOException если не удается инициализировать потоки.
      */
     public TCPConnection(TCPConnectionListener listener, Socket socket) throws IOException {
+        this(listener, socket, () -> OutboundPolicy.DEFAULT); // Политика исходящей очереди по умолчанию
+    }
+
+    /**
+     * Конструктор TCPConnection, который принимает готовый сокет и источник политики исходящей очереди.
+     * Политика запрашивается перед каждым раундом отправки, поэтому источник должен отвечать без блокировок.
+     *
+     * @param listener слушатель событий соединения.
+     * @param socket   готовый сокет для подключения.
+     * @param policy   источник актуальной политики исходящей очереди.
+     * @throws IOException если не удается инициализировать потоки.
+     */
+    public TCPConnection(TCPConnectionListener listener, Socket socket, Supplier<OutboundPolicy> policy) throws IOException {
         this.listener = listener;
         this.socket = socket;
+        this.policy = policy;
 
         // Инициализация потоков для чтения и записи с использованием кодировки UTF-8
         in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
         out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
 
+        // Инициализация полос исходящей очереди
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ArrayDeque<String>[] queues = new ArrayDeque[Priority.values().length];
+        for (int i = 0; i < queues.length; i++) queues[i] = new ArrayDeque<>();
+        lanes = queues;
+
         // Создание и запуск потока для приема сообщений
         thread = new Thread(() -> {
             try {
@@ -60,45 +104,289 @@ public class TCPConnection {
                     }
                 }
             } catch (IOException e) {
-                listener.onConnectionException(TCPConnection.this, e); // Уведомление об исключении
+                if (!closed) listener.onConnectionException(TCPConnection.this, e); // Уведомление об исключении, если соединение не закрыто локально
             } finally {
-                listener.onConnectionDisconnect(TCPConnection.this); // Уведомление об отключении
+                disconnect(); // Закрытие сокета и остановка потока записи при любом завершении чтения
             }
         });
+        writer = new Thread(this::writeLoop, "tcp-writer " + socket.getRemoteSocketAddress());
+        writer.setDaemon(true); // Поток записи не должен удерживать JVM
+        writer.start(); // Запуск потока отправки сообщений
         thread.start(); // Запуск потока приема сообщений
     }
 
     /**
-     * Отправка строки сообщения через TCP-соединение.
-     * Метод синхронизирован для безопасной работы в многопоточной среде.
+     * Отправка строки сообщения через TCP-соединение в полосе чата.
      *
      * @param msg сообщение, которое нужно отправить.
      */
-    public synchronized void sendString(String msg) {
+    public void sendString(String msg) {
+        sendString(msg, Priority.CHAT);
+    }
+
+    /**
+     * Постановка сообщения в полосу исходящей очереди. Метод не блокируется:
+     * если полоса переполнена, сообщение отбрасывается.
+     *
+     * @param msg      сообщение, которое нужно отправить.
+     * @param priority полоса, в которую ставится сообщение.
+     * @return true, если сообщение принято в очередь.
+     */
+    public boolean sendString(String msg, Priority priority) {
+        synchronized (lanesLock) {
+            if (closed || finishing) return false;
+            ArrayDeque<String> lane = lanes[priority.ordinal()];
+            int capacity = policy.get().getCapacity(priority);
+            if (lane.size() >= capacity) {
+                long total = dropped.incrementAndGet(); // Переполнение полосы
+                QueueOverflowEvent event = new QueueOverflowEvent();
+                if (event.shouldCommit()) { // Поля заполняются, только если событие записывается
+                    event.remoteAddress = getRemoteId();
+                    event.lane = priority.name();
+                    event.capacity = capacity;
+                    event.totalDropped = total;
+                    event.commit();
+                }
+                return false;
+            }
+            lane.addLast(msg);
+            enqueued++;
+            lanesLock.notifyAll(); // Пробуждение потока записи
+            return true;
+        }
+    }
+
+    /**
+     * Отправка пачки сообщений через TCP-соединение в полосе чата.
+     * Пачка ставится в очередь целиком и уходит одной записью, а не по одному сообщению.
+     *
+     * @param messages сообщения, которые нужно отправить.
+     */
+    public void sendStrings(Collection<String> messages) {
+        synchronized (lanesLock) {
+            for (String msg : messages) sendString(msg, Priority.CHAT); // Повторный вход в блокировку допустим
+        }
+    }
+
+    /**
+     * Текущая глубина полосы исходящей очереди.
+     *
+     * @param priority полоса.
+     * @return количество сообщений, ожидающих отправки.
+     */
+    public int getQueueDepth(Priority priority) {
+        synchronized (lanesLock) {
+            return lanes[priority.ordinal()].size();
+        }
+    }
+
+    /**
+     * @return количество сообщений, отброшенных из-за переполнения полос.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Ожидает, пока все принятые в очередь сообщения будут отправлены в сокет.
+     * Используется при плавной остановке сервера, чтобы не потерять сообщения в пути.
+     *
+     * @param deadlineNanos крайний срок ожидания по {@link System#nanoTime()}.
+     * @return true, если очередь полностью отправлена до крайнего срока.
+     * @throws InterruptedException если ожидание прервано.
+     */
+    public boolean awaitFlushed(long deadlineNanos) throws InterruptedException {
+        synchronized (lanesLock) {
+            while (!closed && flushed < enqueued) {
+                long remaining = (deadlineNanos - System.nanoTime()) / 1_000_000;
+                if (remaining <= 0) return false; // Крайний срок истек
+                lanesLock.wait(remaining);
+            }
+            return flushed >= enqueued;
+        }
+    }
+
+    /**
+     * Прекращает прием новых сообщений в очередь; уже принятые будут отправлены.
+     * Позволяет при остановке сервера закрыть очереди всех соединений одновременно,
+     * прежде чем ждать отправки каждой из них.
+     */
+    public void finishOutput() {
+        synchronized (lanesLock) {
+            finishing = true;
+        }
+    }
+
+    /**
+     * Плавное закрытие исходящего направления: новые сообщения больше не принимаются,
+     * очередь отправляется в сокет, после чего удаленной стороне сообщается о конце
+     * данных (FIN). В отличие от немедленного закрытия сокета, это не приводит к сбросу
+     * соединения, при котором удаленная сторона может потерять уже полученные данные.
+     *
+     * @param deadlineNanos крайний срок отправки очереди по {@link System#nanoTime()}.
+     * @return true, если очередь отправлена и исходящее направление закрыто.
+     * @throws InterruptedException если ожидание прервано.
+     */
+    public boolean closeOutput(long deadlineNanos) throws InterruptedException {
+        finishOutput();
+        if (!awaitFlushed(deadlineNanos)) return false;
         try {
-            out.write(msg + "\r\n"); // Запись строки с переносом строки
-            out.flush(); // Очистка буфера и отправка сообщения
+            socket.shutdownOutput(); // Поток записи простаивает: новых сообщений не будет
+            return true;
+        } catch (IOException e) {
+            return false; // Соединение уже разорвано
+        }
+    }
+
+    /**
+     * Ожидает закрытия соединения, например удаленной стороной после {@link #closeOutput(long)}.
+     *
+     * @param deadlineNanos крайний срок ожидания по {@link System#nanoTime()}.
+     * @return true, если соединение закрыто до крайнего срока.
+     * @throws InterruptedException если ожидание прервано.
+     */
+    public boolean awaitClosed(long deadlineNanos) throws InterruptedException {
+        synchronized (lanesLock) {
+            while (!closed) {
+                long remaining = (deadlineNanos - System.nanoTime()) / 1_000_000;
+                if (remaining <= 0) return false; // Крайний срок истек
+                lanesLock.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Цикл потока записи. За один раунд отправляются все управляющие кадры, затем
+     * сообщения остальных полос в количестве, равном их весам. Буфер сбрасывается
+     * в сокет, когда очередь опустела, поэтому подряд идущие сообщения уходят пачкой.
+     * Если политика задает задержку сброса, поток ждет новых сообщений не дольше
+     * этой задержки с момента первой несброшенной записи. Раунд с управляющими кадрами
+     * сбрасывается сразу, без задержки и без ожидания опустошения очереди.
+     */
+    private void writeLoop() {
+        List<String> round = new ArrayList<>();
+        long unflushedSince = 0; // Время первой записи после последнего сброса
+        boolean urgent = false; // В буфере есть управляющие кадры
+        try {
+            while (true) {
+                synchronized (lanesLock) {
+                    while (!closed && isEmpty()) lanesLock.wait(); // Ожидание сообщений
+                    if (closed) return;
+                    urgent |= takeRound(round);
+                    taken += round.size();
+                }
+                for (String msg : round) {
+                    out.write(msg);
+                    out.write("\r\n");
+                }
+                round.clear();
+                if (unflushedSince == 0) unflushedSince = System.nanoTime();
+                long written;
+                synchronized (lanesLock) {
+                    if (!urgent) { // Управляющие кадры не ждут попутных сообщений
+                        if (!isEmpty()) continue; // Очередь не пуста — продолжаем накапливать пачку
+                        long remaining = policy.get().getLingerMillis() - (System.nanoTime() - unflushedSince) / 1_000_000;
+                        if (remaining > 0 && !closed) lanesLock.wait(remaining); // Ожидание попутных сообщений
+                        if (!isEmpty() && remaining > 0) continue;
+                    }
+                    written = taken; // Все забранные сообщения уже записаны в буфер
+                }
+                out.flush(); // Очередь пуста, задержка истекла или есть управляющие кадры — отправляем накопленное
+                unflushedSince = 0;
+                urgent = false;
+                synchronized (lanesLock) {
+                    flushed = written;
+                    lanesLock.notifyAll(); // Пробуждение ожидающих отправки очереди
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Поток записи остановлен при отключении
         } catch (IOException e) {
+            if (closed) return; // Сокет закрыт при отключении
             listener.onConnectionException(TCPConnection.this, e); // Уведомление о возникшей ошибке
             disconnect(); // Разрыв соединения при ошибке
         }
     }
 
+    /**
+     * Забирает из полос сообщения одного раунда отправки. Вызывается под блокировкой полос.
+     *
+     * @param round список, в который добавляются сообщения раунда.
+     * @return true, если в раунд попали управляющие кадры.
+     */
+    private boolean takeRound(List<String> round) {
+        ArrayDeque<String> control = lanes[Priority.CONTROL.ordinal()];
+        boolean urgent = !control.isEmpty();
+        round.addAll(control); // Строгий приоритет управляющих кадров
+        control.clear();
+        for (Priority priority : Priority.values()) {
+            if (priority == Priority.CONTROL) continue;
+            ArrayDeque<String> lane = lanes[priority.ordinal()];
+            for (int i = 0; i < priority.getWeight() && !lane.isEmpty(); i++) round.add(lane.pollFirst());
+        }
+        return urgent;
+    }
+
+    /**
+     * @return true, если все полосы пусты. Вызывается под блокировкой полос.
+     */
+    private boolean isEmpty() {
+        for (ArrayDeque<String> lane : lanes) {
+            if (!lane.isEmpty()) return false;
+        }
+        return true;
+    }
+
     /**
      * Отключение TCP-соединения.
      * Метод синхронизирован для безопасного разрыва соединения.
-     * Останавливает поток приема сообщений и закрывает сокет.
+     * Останавливает потоки приема и отправки сообщений и закрывает сокет.
+     * Сообщения, не успевшие уйти из очереди, отбрасываются.
      */
     public synchronized void disconnect() {
+        ConnectionCloseEvent event = new ConnectionCloseEvent();
+        long sent;
+        synchronized (lanesLock) {
+            if (closed) return; // Повторные вызовы не закрывают сокет и не уведомляют слушателя
+            closed = true; // Новые сообщения больше не принимаются
+            sent = flushed;
+            lanesLock.notifyAll(); // Остановка потока записи
+        }
         thread.interrupt(); // Остановка потока приема сообщений
         try {
+            event.begin();
             socket.close(); // Закрытие сокета
+            event.end();
+            if (event.shouldCommit()) {
+                event.remoteAddress = getRemoteId();
+                event.lifetime = System.nanoTime() - createdNanos;
+                event.sent = sent;
+                event.dropped = dropped.get();
+                event.commit();
+            }
             listener.onConnectionDisconnect(this); // Уведомление об отключении
         } catch (IOException e) {
             listener.onConnectionException(TCPConnection.this, e); // Уведомление об исключении
         }
     }
 
+    /**
+     * @return адрес удаленной стороны соединения.
+     */
+    public InetAddress getInetAddress() {
+        return socket.getInetAddress();
+    }
+
+    /**
+     * Возвращает компактный идентификатор удаленной стороны соединения.
+     *
+     * @return строка вида "IP:порт".
+     */
+    public String getRemoteId() {
+        return socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
+    }
+
     /**
      * Переопределение метода toString для предоставления информации о соединении.
      *
@@ -0,0 +1,92 @@
+package oleborn.server;
+
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Класс AdmissionController решает, принимать ли новое подключение.
+ * Он ограничивает общее количество соединений, количество соединений с одного IP
+ * и скорость приема подключений (маркерная корзина), чтобы волна переподключений
+ * после сбоя не исчерпала потоки и файловые дескрипторы сервера.
+ * Ограничения читаются из актуального снимка {@link ServerConfig} при каждой проверке,
+ * поэтому их можно менять на работающем сервере.
+ */
+public class AdmissionController {
+
+    private final Supplier<ServerConfig> config; // Источник актуальных ограничений
+
+    private final Map<InetAddress, Integer> perIp = new HashMap<>(); // Количество соединений по IP
+    private int total; // Количество соединений всего
+    private double tokens; // Доступные маркеры
+    private long lastRefill = System.nanoTime(); // Время последнего пополнения корзины
+
+    /**
+     * Конструктор AdmissionController.
+     *
+     * @param config источник актуального снимка конфигурации.
+     */
+    public AdmissionController(Supplier<ServerConfig> config) {
+        this.config = config;
+        this.tokens = config.get().get(ServerConfig.Setting.ACCEPT_BURST); // Корзина изначально полна
+    }
+
+    /**
+     * Пытается допустить подключение с указанного адреса. При успехе соединение учитывается
+     * в счетчиках и должно быть позже освобождено через {@link #release(InetAddress)}.
+     *
+     * @param address адрес клиента.
+     * @return null, если подключение допущено, иначе причина отказа.
+     */
+    public synchronized String admit(InetAddress address) {
+        ServerConfig limits = config.get(); // Один снимок на всю проверку
+        refill(limits);
+        if (tokens < 1) return "превышена скорость подключений";
+        if (total >= limits.get(ServerConfig.Setting.MAX_CONNECTIONS)) return "достигнут предел подключений";
+        int fromIp = perIp.getOrDefault(address, 0);
+        if (fromIp >= limits.get(ServerConfig.Setting.MAX_CONNECTIONS_PER_IP)) return "достигнут предел подключений с адреса";
+        tokens -= 1;
+        total++;
+        perIp.put(address, fromIp + 1);
+        return null;
+    }
+
+    /**
+     * Освобождает место, занятое допущенным подключением.
+     *
+     * @param address адрес клиента.
+     */
+    public synchronized void release(InetAddress address) {
+        Integer fromIp = perIp.get(address);
+        if (fromIp == null) return; // Подключение не учитывалось
+        if (fromIp == 1) perIp.remove(address); else perIp.put(address, fromIp - 1);
+        total--;
+    }
+
+    /**
+     * Пополняет корзину маркеров пропорционально прошедшему времени.
+     *
+     * @param limits текущий снимок конфигурации.
+     */
+    private void refill(ServerConfig limits) {
+        long now = System.nanoTime();
+        double rate = limits.get(ServerConfig.Setting.ACCEPT_RATE);
+        tokens = Math.min(limits.get(ServerConfig.Setting.ACCEPT_BURST), tokens + (now - lastRefill) * rate / 1e9);
+        lastRefill = now;
+    }
+
+    /**
+     * Возвращает текущие ограничения и загрузку.
+     *
+     * @return строка с описанием.
+     */
+    public synchronized String describe() {
+        ServerConfig limits = config.get();
+        return "Соединений: " + total + "/" + limits.get(ServerConfig.Setting.MAX_CONNECTIONS)
+                + ", с одного IP: " + limits.get(ServerConfig.Setting.MAX_CONNECTIONS_PER_IP)
+                + ", скорость: " + limits.get(ServerConfig.Setting.ACCEPT_RATE)
+                + "/с, всплеск: " + limits.get(ServerConfig.Setting.ACCEPT_BURST)
+                + ", backlog: " + limits.get(ServerConfig.Setting.LISTEN_BACKLOG);
+    }
+}
@@ -0,0 +1,30 @@
+package oleborn.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Событие JFR о рассылке сообщения: постановка в очереди всех получателей.
+ * По умолчанию записываются только рассылки дольше порога.
+ */
+@Name("oleborn.chat.Broadcast")
+@Label("Broadcast")
+@Category({"Chat", "Message"})
+@Description("Рассылка сообщения всем подключенным клиентам")
+@StackTrace(false)
+@Threshold("1 ms")
+final class BroadcastEvent extends jdk.jfr.Event {
+
+    @Label("Lane")
+    String lane; // Полоса исходящей очереди
+
+    @Label("Recipients")
+    int recipients; // Количество получателей
+
+    @Label("Dropped")
+    int dropped; // Получатели, у которых сообщение отброшено
+}
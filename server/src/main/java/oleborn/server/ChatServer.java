@@ -1,11 +1,28 @@
 package oleborn.server;
 
+import oleborn.network.Priority;
+import oleborn.network.Protocol;
 import oleborn.network.TCPConnection;
 import oleborn.network.TCPConnectionListener;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Класс ChatServer представляет собой многопользовательский сервер для чата.
@@ -18,31 +35,105 @@ public class ChatServer implements TCPConnectionListener, ServerController {
     private volatile boolean running; // Статус работы сервера
     private int port = 8888; // Порт для подключения
     private ServerSocket serverSocket; // Сокет для приема соединений
-    private Thread serverThread; // Поток, в котором работает сервер
+    private volatile Thread serverThread; // Поток, в котором работает сервер
     private ServerManager serverManager; // Менеджер сервера для управления
+    private final Object lifecycleLock = new Object(); // Блокировка запуска и остановки сервера
+
+    private static final int SEARCH_LIMIT = 20; // Максимальное количество результатов поиска
+    private static final long PREVIOUS_THREAD_JOIN_MILLIS = 1000; // Ожидание потока приема прошлого запуска при перезапуске
+    private static final int WORKER_QUEUE_LIMIT = 256; // Максимум запросов, ожидающих свободного рабочего потока
+
+    private final AtomicReference<ServerConfig> config = new AtomicReference<>(ServerConfig.DEFAULT); // Текущий снимок конфигурации
+    private final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(
+            config.get().get(ServerConfig.Setting.EVENT_LOOPS), daemonThreads("chat-scheduler")); // Планировщик периодических задач сервера
+    private final ThreadPoolExecutor workers = new ThreadPoolExecutor(
+            config.get().get(ServerConfig.Setting.WORKERS), config.get().get(ServerConfig.Setting.WORKERS),
+            60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(WORKER_QUEUE_LIMIT), daemonThreads("chat-worker")); // Обработка запросов клиентов
+    private final AdmissionController admission = new AdmissionController(config::get); // Ограничения на прием подключений
+    private final SearchIndex searchIndex = new SearchIndex(1 << 16, 1 << 22, 16, 1 << 16); // Индекс истории: до 1М сообщений и 64М символов текста
+    private final PresenceTracker presence = new PresenceTracker(frame -> sendToAll(frame, Priority.CONTROL), 250, 240); // Учет пользователей в сети, снимок раз в минуту
+    private final RecordingManager recordings = new RecordingManager(); // Запись Java Flight Recorder
 
     /**
      * Уведомление о готовности соединения.
-     * Клиент успешно подключился к серверу.
+     * Клиент успешно подключился к серверу. Если сервер уже начал остановку,
+     * соединение закрывается без допуска.
      *
      * @param connection соединение клиента.
      */
     @Override
-    public synchronized void onConnectionReady(TCPConnection connection) {
-        connections.add(connection);
-        sendToAll("Клиент подключился: " + connection); // Уведомление о подключении клиента
+    public void onConnectionReady(TCPConnection connection) {
+        ConnectionReadyEvent event = new ConnectionReadyEvent();
+        event.begin(); // Замер включает ожидание блокировки сервера
+        boolean admitted;
+        synchronized (this) {
+            admitted = running; // После начала остановки соединение не попадает в список остановки
+            if (admitted) {
+                connections.add(connection);
+                connection.sendString(Protocol.WELCOME, Priority.CONTROL); // Подтверждение допуска
+                presence.onJoin(connection); // Снимок новому клиенту, дельта остальным в ближайшем окне
+            }
+        }
+        event.end();
+        if (!admitted) { // Сервер остановлен, пока соединение создавалось
+            admission.release(connection.getInetAddress());
+            connection.disconnect(); // Вне блокировки сервера: соединение само вызывает onConnectionDisconnect
+            return;
+        }
+        if (event.shouldCommit()) {
+            event.remoteAddress = connection.getRemoteId();
+            event.connections = connections.size();
+            event.commit();
+        }
     }
 
     /**
      * Уведомление о получении сообщения от клиента.
-     * Сообщение отправляется всем подключенным клиентам.
+     * Сообщение отправляется всем подключенным клиентам и передается на индексацию.
+     * Сообщение, начинающееся с зарезервированного символа служебных кадров, пересылается
+     * экранированным, чтобы клиент не мог выдать его за кадр сервера.
+     * Поисковый запрос выполняется рабочим потоком и отвечается только отправителю.
      *
      * @param connection соединение клиента.
      * @param value      сообщение от клиента.
      */
     @Override
-    public synchronized void onReceiveString(TCPConnection connection, String value) {
-        sendToAll(value); // Отправка полученного сообщения всем клиентам
+    public void onReceiveString(TCPConnection connection, String value) {
+        MessageReceiveEvent event = new MessageReceiveEvent();
+        event.begin();
+        boolean search = Protocol.isFrame(value, Protocol.SEARCH_REQUEST);
+        if (search) {
+            String query = value.substring(Protocol.SEARCH_REQUEST.length());
+            try {
+                workers.execute(() -> answerSearch(connection, query));
+            } catch (RejectedExecutionException e) {
+                connection.sendString(Protocol.SEARCH_DONE + 0, Priority.BULK); // Рабочие потоки перегружены
+            }
+        } else {
+            synchronized (this) {
+                sendToAll(Protocol.escape(value)); // Отправка полученного сообщения всем клиентам
+                searchIndex.submit(value); // Индексация выполняется в отдельном потоке
+            }
+        }
+        event.end();
+        if (event.shouldCommit()) { // Поля заполняются, только если событие превысило порог
+            event.remoteAddress = connection.getRemoteId();
+            event.length = value.length();
+            event.search = search;
+            event.commit();
+        }
+    }
+
+    /**
+     * Выполняет поисковый запрос и отправляет результаты клиенту.
+     *
+     * @param connection соединение клиента.
+     * @param query      термы запроса.
+     */
+    private void answerSearch(TCPConnection connection, String query) {
+        List<String> results = search(query);
+        for (String result : results) connection.sendString(Protocol.SEARCH_RESULT + result, Priority.BULK);
+        connection.sendString(Protocol.SEARCH_DONE + results.size(), Priority.BULK); // Та же полоса, чтобы не обогнать результаты
     }
 
     /**
@@ -53,8 +144,8 @@ public class ChatServer implements TCPConnectionListener, ServerController {
      */
     @Override
     public synchronized void onConnectionDisconnect(TCPConnection connection) {
-        connections.remove(connection);
-        sendToAll("Клиент отключился: " + connection); // Уведомление об отключении клиента
+        if (connections.remove(connection)) admission.release(connection.getInetAddress()); // Освобождение места
+        presence.onLeave(connection); // Дельта об отключении уйдет в ближайшем окне
     }
 
     /**
@@ -67,16 +158,41 @@ public class ChatServer implements TCPConnectionListener, ServerController {
     @Override
     public synchronized void onConnectionException(TCPConnection connection, Exception e) {
         System.out.println("Исключение: " + e.getMessage()); // Сообщение об исключении
-        connections.remove(connection);
+        if (connections.remove(connection)) admission.release(connection.getInetAddress());
+        presence.onLeave(connection);
     }
 
     /**
-     * Отправляет сообщение всем подключенным клиентам.
+     * Отправляет сообщение всем подключенным клиентам в полосе чата.
      *
      * @param message сообщение для отправки.
      */
     private void sendToAll(String message) {
-        for (TCPConnection connection : connections) connection.sendString(message); // Отправка сообщения каждому клиенту
+        sendToAll(message, Priority.CHAT);
+    }
+
+    /**
+     * Отправляет сообщение всем подключенным клиентам в указанной полосе.
+     *
+     * @param message  сообщение для отправки.
+     * @param priority полоса исходящей очереди.
+     */
+    private void sendToAll(String message, Priority priority) {
+        BroadcastEvent event = new BroadcastEvent();
+        event.begin();
+        int recipients = 0;
+        int dropped = 0;
+        for (TCPConnection connection : connections) { // Постановка в очередь каждого клиента
+            recipients++;
+            if (!connection.sendString(message, priority)) dropped++;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.lane = priority.name();
+            event.recipients = recipients;
+            event.dropped = dropped;
+            event.commit();
+        }
     }
 
     /**
@@ -84,56 +200,235 @@ public class ChatServer implements TCPConnectionListener, ServerController {
      */
     @Override
     public void startServer() {
-        if (running) {
-            System.out.println("Сервер уже запущен."); // Уведомление, если сервер уже работает
-            return;
-        }
-        running = true;
-        serverThread = new Thread(() -> {
-            try (ServerSocket server = new ServerSocket(port)) {
-                serverSocket = server;
-                System.out.println("Сервер запущен на порту " + port); // Сообщение о запуске сервера
-                while (running) {
-                    try {
-                        new TCPConnection(this, server.accept()); // Прием нового соединения
-                    } catch (IOException e) {
-                        if (!running) {
-                            System.out.println("Сервер остановлен."); // Сообщение об остановке сервера
-                        } else {
+        synchronized (lifecycleLock) {
+            if (running) {
+                System.out.println("Сервер уже запущен."); // Уведомление, если сервер уже работает
+                return;
+            }
+            running = true;
+            presence.start(scheduler); // Запуск рассылки дельт присутствия
+            serverThread = new Thread(() -> {
+                try (ServerSocket server = new ServerSocket()) {
+                    server.setReuseAddress(true); // Повторная привязка к порту, пока старый сокет в TIME_WAIT
+                    server.bind(new InetSocketAddress(port), config.get().get(ServerConfig.Setting.LISTEN_BACKLOG));
+                    if (serverThread != Thread.currentThread()) return; // Сервер уже остановлен или перезапущен другим потоком
+                    serverSocket = server;
+                    System.out.println("Сервер запущен на порту " + port); // Сообщение о запуске сервера
+                    while (running && serverThread == Thread.currentThread()) { // Поток прошлого запуска не продолжает прием
+                        try {
+                            accept(server.accept()); // Прием нового соединения
+                        } catch (IOException e) {
+                            if (server.isClosed()) {
+                                System.out.println("Прием подключений остановлен."); // Серверный сокет закрыт при остановке
+                                break;
+                            }
                             System.out.println("Исключение: " + e.getMessage()); // Сообщение об исключении
                         }
                     }
+                } catch (IOException e) {
+                    System.out.println("Не удалось запустить сервер: " + e.getMessage()); // Сообщение о невозможности запуска сервера
+                } finally {
+                    stopAbandoned(); // Остановка сервера, если поток завершился не по команде
                 }
+            });
+            serverThread.start(); // Запуск потока сервера
+        }
+    }
+
+    /**
+     * Останавливает сервер, если поток приема подключений текущего запуска завершился
+     * не по команде (например, порт занят). Поток прошлого запуска сервер не трогает:
+     * иначе неудачная привязка одного запуска могла бы остановить уже работающий сервер.
+     */
+    private void stopAbandoned() {
+        Thread current = Thread.currentThread();
+        if (!running || serverThread != current) return; // Остановка по команде или поток устарел
+        synchronized (lifecycleLock) {
+            if (running && serverThread == current) stopServer();
+        }
+    }
+
+    /**
+     * Допуск принятого сокета. Отклоненный клиент получает короткий кадр с причиной,
+     * после чего сокет закрывается без создания соединения и потоков.
+     *
+     * @param socket принятый сокет клиента.
+     * @throws IOException если не удается инициализировать соединение.
+     */
+    private void accept(Socket socket) throws IOException {
+        ConnectionAcceptEvent event = new ConnectionAcceptEvent();
+        event.begin();
+        String refusal = admission.admit(socket.getInetAddress());
+        try {
+            if (refusal != null) {
+                refuse(socket, refusal);
+                return;
+            }
+            try {
+                new TCPConnection(this, socket, () -> config.get().getOutboundPolicy()); // Политика читается из снимка без блокировок
             } catch (IOException e) {
-                System.out.println("Не удалось запустить сервер: " + e.getMessage()); // Сообщение о невозможности запуска сервера
-            } finally {
-                stopServer(); // Остановка сервера при завершении работы
+                admission.release(socket.getInetAddress()); // Соединение не создано — место освобождается
+                socket.close();
+                refusal = e.getMessage();
+                throw e;
+            }
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.remoteAddress = socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
+                event.admitted = refusal == null;
+                event.refusal = refusal;
+                event.commit();
             }
-        });
-        serverThread.start(); // Запуск потока сервера
+        }
     }
 
     /**
-     * Остановка сервера. Если сервер уже остановлен, выводится уведомление.
+     * Отправляет кадр отказа и закрывает сокет. Запись не блокируется: кадр помещается в буфер сокета.
+     *
+     * @param socket сокет клиента.
+     * @param reason причина отказа.
+     */
+    private void refuse(Socket socket, String reason) {
+        try (socket; OutputStream out = socket.getOutputStream()) {
+            out.write((Protocol.REFUSED + reason + "\r\n").getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.out.println("Исключение при отказе в подключении: " + e.getMessage()); // Клиент уже отключился
+        }
+    }
+
+    /**
+     * Плавная остановка сервера. Прием новых подключений прекращается, клиенты получают
+     * подсказку о времени переподключения с разбросом, исходящие очереди всех клиентов
+     * сбрасываются параллельно в пределах крайнего срока, после чего соединения закрываются.
+     * Если сервер уже остановлен, выводится уведомление.
      */
     @Override
     public void stopServer() {
-        if (!running) {
-            System.out.println("Сервер не запущен."); // Уведомление, если сервер уже остановлен
-            return;
+        synchronized (lifecycleLock) {
+            if (!running) {
+                System.out.println("Сервер не запущен."); // Уведомление, если сервер уже остановлен
+                return;
+            }
+            long deadline = drainDeadline();
+            stopAccepting();
+            finishDrain(beginDrain(deadline), deadline);
+            System.out.println("Сервер остановлен."); // Сообщение об остановке сервера
         }
+    }
+
+    /**
+     * Перезапуск сервера: плавная остановка и повторный запуск на том же порту.
+     * Новый серверный сокет открывается сразу после сброса очередей, не дожидаясь,
+     * пока старые клиенты закроют соединения, поэтому клиенты, вернувшиеся по подсказке,
+     * застают сервер уже запущенным.
+     */
+    @Override
+    public void restartServer() {
+        synchronized (lifecycleLock) {
+            if (!running) {
+                startServer();
+                return;
+            }
+            long deadline = drainDeadline();
+            Thread previous = serverThread;
+            stopAccepting();
+            List<TCPConnection> draining = beginDrain(deadline);
+            try {
+                // Поток приема завершается сразу после закрытия сокета; ожидание ограничено, потому что поток
+                // с неудачной привязкой может ждать блокировку запуска, а устаревший поток сервер уже не трогает
+                previous.join(PREVIOUS_THREAD_JOIN_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.out.println("Прерывание при перезапуске сервера: " + e.getMessage());
+            }
+            startServer(); // Сокет с SO_REUSEADDR привязывается к порту повторно без ожидания TIME_WAIT
+            finishDrain(draining, deadline);
+        }
+    }
+
+    /**
+     * @return крайний срок плавной остановки по {@link System#nanoTime()}.
+     */
+    private long drainDeadline() {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.get().get(ServerConfig.Setting.DRAIN_TIMEOUT));
+    }
+
+    /**
+     * Прекращает прием новых подключений и рассылку дельт присутствия.
+     */
+    private void stopAccepting() {
         running = false;
         try {
-            for (TCPConnection connection : connections) {
-                connection.disconnect(); // Отключение всех клиентов
-            }
             if (serverSocket != null && !serverSocket.isClosed()) {
                 serverSocket.close(); // Закрытие серверного сокета
             }
-            System.out.println("Сервер остановлен."); // Сообщение об остановке сервера
         } catch (IOException e) {
             System.out.println("Исключение при остановке сервера: " + e.getMessage()); // Сообщение об исключении при остановке сервера
         }
+        presence.stop(); // Остановка рассылки дельт присутствия
+    }
+
+    /**
+     * Первая фаза плавной остановки: рассылка подсказок о переподключении и сброс исходящих
+     * очередей. Подсказка идет в управляющей полосе, поэтому клиент получает ее раньше
+     * накопленных сообщений чата. Потоки записи соединений работают параллельно, поэтому
+     * ожидание с общим крайним сроком занимает не больше этого срока независимо от количества
+     * клиентов. Очереди всех соединений закрываются для новых сообщений одновременно, до
+     * ожидания, поэтому набор доставленных сообщений не зависит от положения клиента в списке.
+     * После отправки очереди клиенту сообщается о конце данных.
+     *
+     * @param deadline крайний срок по {@link System#nanoTime()}.
+     * @return соединения, участвующие в остановке.
+     */
+    private List<TCPConnection> beginDrain(long deadline) {
+        ServerConfig current = config.get();
+        int delay = current.get(ServerConfig.Setting.RECONNECT_DELAY);
+        int jitter = current.get(ServerConfig.Setting.RECONNECT_JITTER);
+        List<TCPConnection> draining;
+        synchronized (this) { // Рассылка чата и допуск соединений идут под этой же блокировкой: сообщение получат все клиенты или никто
+            draining = new ArrayList<>(connections); // Соединения, готовые позже, увидят остановку и будут закрыты
+            for (TCPConnection connection : draining) {
+                int reconnectIn = delay + ThreadLocalRandom.current().nextInt(jitter + 1); // Разброс разводит клиентов во времени
+                connection.sendString(Protocol.RECONNECT + reconnectIn, Priority.CONTROL);
+                connection.finishOutput();
+            }
+        }
+        long started = System.nanoTime();
+        int flushed = 0;
+        try {
+            for (TCPConnection connection : draining) {
+                if (connection.closeOutput(deadline)) flushed++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Сброс очередей прерван."); // Оставшиеся сообщения будут потеряны
+        }
+        System.out.println("Очереди сброшены у " + flushed + " из " + draining.size() + " клиентов за "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + " мс"); // Итог сброса очередей
+        return draining;
+    }
+
+    /**
+     * Вторая фаза плавной остановки: ожидание, пока клиенты, дочитав данные, закроют
+     * соединения сами; оставшиеся к крайнему сроку соединения закрываются принудительно.
+     *
+     * @param draining соединения, участвующие в остановке.
+     * @param deadline крайний срок по {@link System#nanoTime()}.
+     */
+    private void finishDrain(List<TCPConnection> draining, long deadline) {
+        int forced = 0;
+        try {
+            for (TCPConnection connection : draining) {
+                if (!connection.awaitClosed(deadline)) forced++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (TCPConnection connection : draining) {
+            connection.disconnect(); // Отключение всех клиентов
+        }
+        if (forced > 0) System.out.println("Принудительно отключено клиентов: " + forced); // Клиенты не закрыли соединение вовремя
     }
 
     /**
@@ -156,6 +451,177 @@ public class ChatServer implements TCPConnectionListener, ServerController {
         return running;
     }
 
+    /**
+     * Возвращает список пользователей, находящихся в сети.
+     *
+     * @return идентификаторы подключенных клиентов.
+     */
+    @Override
+    public List<String> getOnlineUsers() {
+        return presence.getOnline();
+    }
+
+    /**
+     * Поиск по истории сообщений.
+     *
+     * @param query термы запроса.
+     * @return найденные сообщения, начиная с самых новых.
+     */
+    @Override
+    public List<String> search(String query) {
+        return searchIndex.search(query, SEARCH_LIMIT);
+    }
+
+    /**
+     * Статистика поискового индекса.
+     *
+     * @return строка со статистикой.
+     */
+    @Override
+    public String getSearchStats() {
+        return searchIndex.stats();
+    }
+
+    /**
+     * Метрики исходящих очередей: суммарная и максимальная глубина каждой полосы
+     * по всем соединениям и количество отброшенных сообщений.
+     *
+     * @return строка с метриками.
+     */
+    @Override
+    public String getMetrics() {
+        Priority[] priorities = Priority.values();
+        long[] total = new long[priorities.length];
+        int[] max = new int[priorities.length];
+        long dropped = 0;
+        int count = 0;
+        for (TCPConnection connection : connections) {
+            count++;
+            for (Priority priority : priorities) {
+                int depth = connection.getQueueDepth(priority);
+                total[priority.ordinal()] += depth;
+                max[priority.ordinal()] = Math.max(max[priority.ordinal()], depth);
+            }
+            dropped += connection.getDroppedCount();
+        }
+        StringBuilder metrics = new StringBuilder("Соединений: ").append(count);
+        for (Priority priority : priorities) {
+            metrics.append(", ").append(priority).append(": ").append(total[priority.ordinal()])
+                    .append(" (макс. ").append(max[priority.ordinal()]).append(")");
+        }
+        return metrics.append(", отброшено: ").append(dropped).toString();
+    }
+
+    /**
+     * Текущие ограничения на прием подключений.
+     *
+     * @return строка с описанием ограничений и загрузки.
+     */
+    @Override
+    public String getLimits() {
+        return admission.describe();
+    }
+
+    /**
+     * Текущий снимок конфигурации.
+     *
+     * @return снимок конфигурации.
+     */
+    @Override
+    public ServerConfig getConfig() {
+        return config.get();
+    }
+
+    /**
+     * Изменение параметра на работающем сервере. Новый снимок атомарно заменяет текущий,
+     * после чего размеры пулов потоков приводятся к нему.
+     *
+     * @param setting параметр.
+     * @param value   новое значение.
+     * @return новый снимок конфигурации.
+     */
+    @Override
+    public ServerConfig updateConfig(ServerConfig.Setting setting, int value) {
+        ServerConfig updated = config.updateAndGet(current -> current.with(setting, value));
+        applyConfig();
+        return updated;
+    }
+
+    /**
+     * Запуск записи Java Flight Recorder с профилем сервера.
+     *
+     * @return описание результата.
+     */
+    @Override
+    public String startRecording() {
+        return recordings.start(config.get());
+    }
+
+    /**
+     * Сохранение идущей записи Java Flight Recorder в файл.
+     *
+     * @param file путь к файлу записи.
+     * @return описание результата.
+     */
+    @Override
+    public String dumpRecording(String file) {
+        return recordings.dump(file);
+    }
+
+    /**
+     * Остановка записи Java Flight Recorder с сохранением в файл.
+     *
+     * @param file путь к файлу записи.
+     * @return описание результата.
+     */
+    @Override
+    public String stopRecording(String file) {
+        return recordings.stop(file);
+    }
+
+    /**
+     * Состояние записи Java Flight Recorder.
+     *
+     * @return строка с описанием.
+     */
+    @Override
+    public String getRecordingStatus() {
+        return recordings.describe(config.get());
+    }
+
+    /**
+     * Приводит размеры пулов потоков и пороги записи JFR к текущему снимку. Синхронизирован,
+     * чтобы параллельные изменения не применялись вперемешку; всегда применяет последний снимок.
+     */
+    private synchronized void applyConfig() {
+        ServerConfig current = config.get();
+        scheduler.setCorePoolSize(current.get(ServerConfig.Setting.EVENT_LOOPS));
+        int size = current.get(ServerConfig.Setting.WORKERS);
+        if (size > workers.getMaximumPoolSize()) { // Максимум не может быть меньше базового размера
+            workers.setMaximumPoolSize(size);
+            workers.setCorePoolSize(size);
+        } else {
+            workers.setCorePoolSize(size);
+            workers.setMaximumPoolSize(size);
+        }
+        recordings.applyThresholds(current);
+    }
+
+    /**
+     * Фабрика фоновых потоков с нумерованными именами.
+     *
+     * @param name префикс имени потока.
+     * @return фабрика потоков.
+     */
+    static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true); // Фоновые потоки не должны удерживать JVM
+            return thread;
+        };
+    }
+
     /**
      * Установка порта сервера.
      * Порт можно изменить только тогда, когда сервер не запущен.
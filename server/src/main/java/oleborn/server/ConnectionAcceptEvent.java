@@ -0,0 +1,28 @@
+package oleborn.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR о приеме подключения: проверка допуска и создание соединения.
+ * Длительность события — время, на которое занят поток приема подключений.
+ */
+@Name("oleborn.chat.ConnectionAccept")
+@Label("Connection Accept")
+@Category({"Chat", "Connection"})
+@Description("Допуск и создание соединения с клиентом")
+@StackTrace(false)
+final class ConnectionAcceptEvent extends jdk.jfr.Event {
+
+    @Label("Remote Address")
+    String remoteAddress; // Адрес клиента в виде ip:port
+
+    @Label("Admitted")
+    boolean admitted; // Соединение создано
+
+    @Label("Refusal")
+    String refusal; // Причина отказа, если подключение отклонено
+}
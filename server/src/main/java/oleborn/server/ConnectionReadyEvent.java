@@ -0,0 +1,25 @@
+package oleborn.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JFR о готовности соединения: регистрация клиента, подтверждение допуска
+ * и отправка снимка присутствия. В длительность входит ожидание блокировки сервера.
+ */
+@Name("oleborn.chat.ConnectionReady")
+@Label("Connection Ready")
+@Category({"Chat", "Connection"})
+@Description("Регистрация подключившегося клиента")
+@StackTrace(false)
+final class ConnectionReadyEvent extends jdk.jfr.Event {
+
+    @Label("Remote Address")
+    String remoteAddress; // Адрес клиента в виде ip:port
+
+    @Label("Connections")
+    int connections; // Количество соединений после регистрации
+}
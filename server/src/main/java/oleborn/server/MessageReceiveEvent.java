@@ -0,0 +1,31 @@
+package oleborn.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Событие JFR об обработке сообщения клиента. Длительность события — время, на которое
+ * занят поток приема соединения, включая ожидание блокировки сервера и рассылку.
+ * По умолчанию записываются только обработки дольше порога.
+ */
+@Name("oleborn.chat.MessageReceive")
+@Label("Message Receive")
+@Category({"Chat", "Message"})
+@Description("Обработка сообщения, полученного от клиента")
+@StackTrace(false)
+@Threshold("1 ms")
+final class MessageReceiveEvent extends jdk.jfr.Event {
+
+    @Label("Remote Address")
+    String remoteAddress; // Адрес отправителя в виде ip:port
+
+    @Label("Length")
+    int length; // Длина сообщения в символах
+
+    @Label("Search")
+    boolean search; // Сообщение — поисковый запрос
+}
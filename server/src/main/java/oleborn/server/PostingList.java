@@ -0,0 +1,73 @@
+package oleborn.server;
+
+import java.util.Arrays;
+
+/**
+ * Класс PostingList хранит возрастающий список номеров сообщений, содержащих терм.
+ * Номера кодируются разностями (delta) в формате varint: соседние сообщения
+ * занимают по одному байту, поэтому списки частых термов остаются компактными.
+ * Класс не потокобезопасен — синхронизацию обеспечивает {@link SearchIndex}.
+ */
+final class PostingList {
+
+    private byte[] data = new byte[4]; // Закодированные разности номеров
+    private int length; // Количество занятых байт
+    private int count; // Количество номеров в списке
+    private int last = -1; // Последний добавленный номер
+
+    /**
+     * Добавляет номер сообщения в конец списка. Повторное добавление последнего номера игнорируется.
+     *
+     * @param doc номер сообщения, не меньший последнего добавленного.
+     */
+    void add(int doc) {
+        if (doc == last) return; // Терм встретился в сообщении повторно
+        int delta = doc - last;
+        last = doc;
+        count++;
+        if (length + 5 > data.length) data = Arrays.copyOf(data, data.length * 2); // Varint int занимает не более 5 байт
+        while ((delta & ~0x7F) != 0) {
+            data[length++] = (byte) ((delta & 0x7F) | 0x80); // Младшие 7 бит и признак продолжения
+            delta >>>= 7;
+        }
+        data[length++] = (byte) delta;
+    }
+
+    /**
+     * Раскодирует список в массив номеров по возрастанию.
+     *
+     * @return массив номеров сообщений.
+     */
+    int[] decode() {
+        int[] docs = new int[count];
+        int doc = -1;
+        int pos = 0;
+        for (int i = 0; i < count; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0); // Старший бит — признак продолжения
+            doc += delta;
+            docs[i] = doc;
+        }
+        return docs;
+    }
+
+    /**
+     * @return количество номеров в списке.
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * @return объем памяти, занятой закодированными данными, в байтах.
+     */
+    int capacity() {
+        return data.length;
+    }
+}
@@ -0,0 +1,126 @@
+package oleborn.server;
+
+import oleborn.network.Priority;
+import oleborn.network.Protocol;
+import oleborn.network.TCPConnection;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Класс PresenceTracker ведет список пользователей в сети и рассылает изменения
+ * в виде компактных дельт. Подключения и отключения, произошедшие за окно агрегации,
+ * объединяются в один кадр; пара "подключился-отключился" внутри окна взаимно
+ * сокращается. Новый клиент получает один полный снимок списка.
+ * Кадры присутствия идут в ограниченной управляющей полосе и могут быть отброшены
+ * при ее переполнении, поэтому раз в несколько окон вместо дельт всем рассылается
+ * полный снимок: клиент, пропустивший дельту, восстанавливает верный список.
+ */
+public class PresenceTracker {
+
+    private final Set<String> online = new LinkedHashSet<>(); // Пользователи в сети
+    private final Set<String> pendingJoins = new LinkedHashSet<>(); // Подключения, еще не разосланные
+    private final Set<String> pendingLeaves = new LinkedHashSet<>(); // Отключения, еще не разосланные
+    private final Consumer<String> broadcaster; // Рассылка кадра всем клиентам
+    private final long windowMillis; // Окно агрегации дельт
+    private final int snapshotWindows; // Через сколько окон рассылается полный снимок
+    private long windows; // Количество прошедших окон
+    private ScheduledFuture<?> flushTask; // Задача периодической рассылки дельт
+
+    /**
+     * Конструктор PresenceTracker.
+     *
+     * @param broadcaster     функция рассылки кадра всем подключенным клиентам.
+     * @param windowMillis    окно агрегации дельт в миллисекундах.
+     * @param snapshotWindows через сколько окон рассылается полный снимок для сверки списков.
+     */
+    public PresenceTracker(Consumer<String> broadcaster, long windowMillis, int snapshotWindows) {
+        this.broadcaster = broadcaster;
+        this.windowMillis = windowMillis;
+        this.snapshotWindows = snapshotWindows;
+    }
+
+    /**
+     * Запускает периодическую рассылку накопленных дельт.
+     *
+     * @param scheduler планировщик, в котором выполняется рассылка.
+     */
+    public synchronized void start(ScheduledExecutorService scheduler) {
+        if (flushTask != null) return; // Рассылка уже запущена
+        flushTask = scheduler.scheduleWithFixedDelay(this::flush, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Останавливает рассылку и очищает список пользователей.
+     */
+    public synchronized void stop() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        online.clear();
+        pendingJoins.clear();
+        pendingLeaves.clear();
+    }
+
+    /**
+     * Регистрирует подключение клиента и отправляет ему снимок списка пользователей в сети.
+     *
+     * @param connection подключившийся клиент.
+     */
+    public void onJoin(TCPConnection connection) {
+        String snapshot;
+        synchronized (this) {
+            String id = connection.getRemoteId();
+            if (!online.add(id)) return; // Клиент уже учтен
+            if (!pendingLeaves.remove(id)) pendingJoins.add(id); // Отключение и повторное подключение в одном окне сокращаются
+            snapshot = Protocol.frame(Protocol.PRESENCE_SNAPSHOT, online);
+        }
+        connection.sendString(snapshot, Priority.CONTROL); // Снимок отправляется вне блокировки
+    }
+
+    /**
+     * Регистрирует отключение клиента. Повторные уведомления об одном и том же отключении игнорируются.
+     *
+     * @param connection отключившийся клиент.
+     */
+    public synchronized void onLeave(TCPConnection connection) {
+        String id = connection.getRemoteId();
+        if (!online.remove(id)) return; // Отключение уже учтено
+        if (!pendingJoins.remove(id)) pendingLeaves.add(id); // Подключение и отключение в одном окне сокращаются
+    }
+
+    /**
+     * Возвращает копию списка пользователей в сети.
+     *
+     * @return список идентификаторов пользователей.
+     */
+    public synchronized List<String> getOnline() {
+        return new ArrayList<>(online);
+    }
+
+    /**
+     * Рассылает накопленные за окно дельты одним кадром на каждый тип изменения,
+     * а раз в {@code snapshotWindows} окон — полный снимок вместо дельт.
+     */
+    private void flush() {
+        List<String> frames = new ArrayList<>(2);
+        synchronized (this) {
+            if (++windows % snapshotWindows == 0) {
+                if (!online.isEmpty()) frames.add(Protocol.frame(Protocol.PRESENCE_SNAPSHOT, online)); // Снимок уже включает дельты окна
+            } else {
+                if (!pendingJoins.isEmpty()) frames.add(Protocol.frame(Protocol.PRESENCE_JOIN, pendingJoins));
+                if (!pendingLeaves.isEmpty()) frames.add(Protocol.frame(Protocol.PRESENCE_LEAVE, pendingLeaves));
+            }
+            pendingJoins.clear();
+            pendingLeaves.clear();
+        }
+        for (String frame : frames) broadcaster.accept(frame); // Рассылка вне блокировки
+    }
+}
@@ -0,0 +1,137 @@
+package oleborn.server;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Класс RecordingManager управляет записью Java Flight Recorder на работающем сервере.
+ * Запись идет с профилем {@value #PROFILE}, который поставляется вместе с сервером:
+ * события чата (подключения, сообщения, рассылка, переполнение очередей) пишутся
+ * вместе с паузами сборки мусора и safepoint, поэтому всплеск задержки чата можно
+ * сопоставить с паузами JVM в одной записи.
+ * Пороги событий обработки сообщений и рассылки берутся из {@link ServerConfig}
+ * и применяются к идущей записи без ее перезапуска.
+ */
+public class RecordingManager {
+
+    /**
+     * Профиль записи в ресурсах сервера. JVM при запуске принимает профиль только как файл,
+     * поэтому передается путь к исходнику ({@code server/src/main/resources/jfr/chat.jfc})
+     * или копия, извлеченная из jar: {@code unzip -p server-1.0-SNAPSHOT.jar jfr/chat.jfc > chat.jfc},
+     * затем {@code -XX:StartFlightRecording:settings=chat.jfc}.
+     */
+    public static final String PROFILE = "/jfr/chat.jfc";
+
+    private static final String RECEIVE_THRESHOLD = "oleborn.chat.MessageReceive#threshold"; // Порог события обработки сообщения
+    private static final String BROADCAST_THRESHOLD = "oleborn.chat.Broadcast#threshold"; // Порог события рассылки
+    private static final Duration MAX_AGE = Duration.ofHours(1); // Непрерывная запись хранит последний час
+
+    private Recording recording; // Текущая запись или null
+    private Map<String, String> profileSettings; // Настройки профиля без учета порогов из конфигурации
+
+    /**
+     * Запускает непрерывную запись с профилем сервера.
+     *
+     * @param config снимок конфигурации с порогами событий.
+     * @return описание результата.
+     */
+    public synchronized String start(ServerConfig config) {
+        if (recording != null) return "Запись JFR уже идет с " + recording.getStartTime();
+        try (InputStream profile = RecordingManager.class.getResourceAsStream(PROFILE)) {
+            if (profile == null) throw new FileNotFoundException(PROFILE);
+            try (Reader reader = new InputStreamReader(profile, StandardCharsets.UTF_8)) {
+                profileSettings = Configuration.create(reader).getSettings();
+            }
+        } catch (IOException | ParseException e) {
+            return "Не удалось прочитать профиль JFR: " + e.getMessage();
+        }
+        recording = new Recording();
+        recording.setName("chat");
+        recording.setToDisk(true);
+        recording.setMaxAge(MAX_AGE);
+        applyThresholds(config);
+        recording.start();
+        return "Запись JFR запущена (" + thresholds(config) + ")";
+    }
+
+    /**
+     * Применяет пороги событий из снимка конфигурации к идущей записи.
+     *
+     * @param config снимок конфигурации.
+     */
+    public synchronized void applyThresholds(ServerConfig config) {
+        if (recording == null) return;
+        Map<String, String> settings = new HashMap<>(profileSettings);
+        settings.put(RECEIVE_THRESHOLD, config.get(ServerConfig.Setting.JFR_RECEIVE_THRESHOLD) + " ms");
+        settings.put(BROADCAST_THRESHOLD, config.get(ServerConfig.Setting.JFR_BROADCAST_THRESHOLD) + " ms");
+        recording.setSettings(settings); // Настройки записи заменяются целиком
+    }
+
+    /**
+     * Сохраняет данные идущей записи в файл, не останавливая ее.
+     *
+     * @param file путь к файлу записи.
+     * @return описание результата.
+     */
+    public synchronized String dump(String file) {
+        if (recording == null) return "Запись JFR не запущена";
+        try {
+            recording.dump(Path.of(file));
+            return "Запись JFR сохранена в " + file;
+        } catch (IOException e) {
+            return "Не удалось сохранить запись JFR: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Останавливает запись и сохраняет ее в файл.
+     *
+     * @param file путь к файлу записи.
+     * @return описание результата.
+     */
+    public synchronized String stop(String file) {
+        if (recording == null) return "Запись JFR не запущена";
+        try {
+            recording.stop();
+            recording.dump(Path.of(file));
+            return "Запись JFR остановлена и сохранена в " + file;
+        } catch (IOException e) {
+            return "Запись JFR остановлена, но не сохранена: " + e.getMessage();
+        } finally {
+            recording.close(); // Освобождение данных записи на диске
+            recording = null;
+        }
+    }
+
+    /**
+     * Возвращает состояние записи.
+     *
+     * @param config снимок конфигурации с порогами событий.
+     * @return строка с описанием.
+     */
+    public synchronized String describe(ServerConfig config) {
+        if (recording == null) return "Запись JFR не запущена";
+        return "Запись JFR идет с " + recording.getStartTime() + " (" + thresholds(config) + ")";
+    }
+
+    /**
+     * @param config снимок конфигурации.
+     * @return описание порогов событий.
+     */
+    private static String thresholds(ServerConfig config) {
+        return "порог сообщений: " + config.get(ServerConfig.Setting.JFR_RECEIVE_THRESHOLD)
+                + " мс, порог рассылки: " + config.get(ServerConfig.Setting.JFR_BROADCAST_THRESHOLD) + " мс";
+    }
+}
@@ -0,0 +1,228 @@
+package oleborn.server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Класс SearchIndex — инвертированный индекс истории чата в памяти процесса.
+ * Сообщения принимаются без блокировки через очередь и индексируются отдельным
+ * потоком, поэтому рассылка сообщений не замедляется. Индекс разбит на сегменты,
+ * ограниченные и количеством сообщений, и суммарной длиной текста: при превышении
+ * лимита самый старый сегмент удаляется целиком. Сообщения длиннее
+ * {@value #MAX_MESSAGE_LENGTH} символов обрезаются еще до очереди индексации, поэтому
+ * несколько огромных строк не могут занять произвольный объем памяти.
+ * Запрос выполняется как пересечение списков вхождений всех термов, начиная с самого короткого.
+ */
+public class SearchIndex {
+
+    private static final int MAX_TERM_LENGTH = 64; // Более длинные термы обрезаются
+    private static final int MAX_MESSAGE_LENGTH = 1024; // Более длинные сообщения хранятся и индексируются обрезанными
+    private static final int INDEX_BATCH = 256; // Сколько сообщений индексируется за один захват блокировки
+
+    private final int segmentCapacity; // Количество сообщений в одном сегменте
+    private final long segmentChars; // Суммарная длина текста сообщений в одном сегменте
+    private final int maxSegments; // Максимальное количество хранимых сегментов
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>(); // Сегменты от старого к новому
+    private final BlockingQueue<String> pending; // Сообщения, ожидающие индексации
+    private final AtomicLong dropped = new AtomicLong(); // Сообщения, не попавшие в индекс из-за переполнения очереди
+    private final Thread indexer; // Поток индексации
+
+    /**
+     * Конструктор SearchIndex.
+     *
+     * @param segmentCapacity количество сообщений в сегменте.
+     * @param segmentChars    суммарная длина текста сообщений в сегменте, символов.
+     * @param maxSegments     максимальное количество хранимых сегментов.
+     * @param queueCapacity   емкость очереди сообщений, ожидающих индексации.
+     */
+    public SearchIndex(int segmentCapacity, long segmentChars, int maxSegments, int queueCapacity) {
+        this.segmentCapacity = segmentCapacity;
+        this.segmentChars = segmentChars;
+        this.maxSegments = maxSegments;
+        this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        indexer = new Thread(this::indexLoop, "chat-indexer");
+        indexer.setDaemon(true); // Индексация не должна удерживать JVM
+        indexer.start();
+    }
+
+    /**
+     * Передает сообщение на индексацию. Метод не блокируется: при переполнении очереди сообщение отбрасывается.
+     * Слишком длинное сообщение обрезается до {@value #MAX_MESSAGE_LENGTH} символов.
+     *
+     * @param message сообщение чата.
+     */
+    public void submit(String message) {
+        if (message.length() > MAX_MESSAGE_LENGTH) message = message.substring(0, MAX_MESSAGE_LENGTH); // Копия без исходной строки
+        if (!pending.offer(message)) dropped.incrementAndGet();
+    }
+
+    /**
+     * Ищет сообщения, содержащие все термы запроса.
+     *
+     * @param query строка запроса.
+     * @param limit максимальное количество результатов.
+     * @return найденные сообщения, начиная с самых новых.
+     */
+    public List<String> search(String query, int limit) {
+        Set<String> terms = tokenize(query);
+        List<String> results = new ArrayList<>();
+        if (terms.isEmpty()) return results;
+        synchronized (this) {
+            Iterator<Segment> it = segments.descendingIterator(); // От новых сегментов к старым
+            while (it.hasNext() && results.size() < limit) {
+                it.next().search(terms, limit - results.size(), results);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Возвращает краткую статистику индекса.
+     *
+     * @return строка со статистикой.
+     */
+    public synchronized String stats() {
+        long messages = 0;
+        long terms = 0;
+        long bytes = 0;
+        long chars = 0;
+        for (Segment segment : segments) {
+            messages += segment.size;
+            chars += segment.chars;
+            terms += segment.postings.size();
+            for (PostingList list : segment.postings.values()) bytes += list.capacity();
+        }
+        return "Сообщений: " + messages + ", сегментов: " + segments.size() + ", термов: " + terms
+                + ", текст: " + chars / 1024 + " К символов, списки вхождений: " + bytes / 1024
+                + " КБ, в очереди: " + pending.size() + ", отброшено: " + dropped.get();
+    }
+
+    /**
+     * Цикл потока индексации: забирает сообщения из очереди пачками и добавляет их в индекс.
+     */
+    private void indexLoop() {
+        List<String> batch = new ArrayList<>(INDEX_BATCH);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(pending.take()); // Ожидание первого сообщения
+                pending.drainTo(batch, INDEX_BATCH - 1); // Остальные забираются без ожидания
+                synchronized (this) {
+                    for (String message : batch) add(message);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Добавляет сообщение в текущий сегмент, при необходимости открывая новый и удаляя самый старый.
+     *
+     * @param message сообщение чата.
+     */
+    private void add(String message) {
+        Segment segment = segments.peekLast();
+        if (segment == null || segment.size == segmentCapacity || segment.chars >= segmentChars) {
+            segment = new Segment(segmentCapacity);
+            segments.addLast(segment);
+            if (segments.size() > maxSegments) segments.removeFirst(); // Ограничение памяти
+        }
+        segment.add(message, tokenize(message));
+    }
+
+    /**
+     * Разбивает текст на термы: последовательности букв и цифр в нижнем регистре.
+     *
+     * @param text исходный текст.
+     * @return уникальные термы в порядке появления.
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                String term = text.substring(start, Math.min(i, start + MAX_TERM_LENGTH));
+                terms.add(term.toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Сегмент индекса: сообщения и списки вхождений термов с локальной нумерацией.
+     */
+    private static final class Segment {
+
+        private final String[] messages; // Сообщения сегмента по локальным номерам
+        private final Map<String, PostingList> postings = new HashMap<>(); // Списки вхождений термов
+        private int size; // Количество сообщений в сегменте
+        private long chars; // Суммарная длина текста сообщений сегмента
+
+        private Segment(int capacity) {
+            messages = new String[capacity];
+        }
+
+        private void add(String message, Set<String> terms) {
+            int doc = size++;
+            messages[doc] = message;
+            chars += message.length();
+            for (String term : terms) postings.computeIfAbsent(term, t -> new PostingList()).add(doc);
+        }
+
+        private void search(Set<String> terms, int limit, List<String> results) {
+            List<PostingList> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null) return; // Терм отсутствует в сегменте — пересечение пусто
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(PostingList::size)); // Начинаем с самого короткого списка
+            int[] docs = lists.get(0).decode();
+            int found = docs.length;
+            for (int i = 1; i < lists.size() && found > 0; i++) {
+                found = intersect(docs, found, lists.get(i).decode());
+            }
+            for (int i = found - 1; i >= 0 && limit > 0; i--, limit--) {
+                results.add(messages[docs[i]]); // Новые сообщения первыми
+            }
+        }
+
+        /**
+         * Пересекает отсортированные массивы, записывая результат в начало первого.
+         *
+         * @return количество элементов пересечения.
+         */
+        private static int intersect(int[] docs, int length, int[] other) {
+            int found = 0;
+            int j = 0;
+            for (int i = 0; i < length && j < other.length; i++) {
+                int doc = docs[i];
+                if (other[other.length - 1] < doc) break; // Дальше совпадений нет
+                j = Arrays.binarySearch(other, j, other.length, doc);
+                if (j >= 0) {
+                    docs[found++] = doc;
+                } else {
+                    j = -j - 1; // Точка вставки — продолжаем поиск с нее
+                }
+            }
+            return found;
+        }
+    }
+}
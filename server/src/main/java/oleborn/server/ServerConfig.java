@@ -0,0 +1,132 @@
+package oleborn.server;
+
+import oleborn.network.OutboundPolicy;
+import oleborn.network.Priority;
+
+import java.util.Arrays;
+
+/**
+ * Класс ServerConfig — неизменяемый снимок настраиваемых параметров сервера с номером версии.
+ * Изменение параметра создает новый снимок, который атомарно подменяет текущий;
+ * горячие пути (прием подключений, потоки записи) читают снимок без блокировок
+ * и всегда видят согласованный набор значений.
+ */
+public final class ServerConfig {
+
+    /**
+     * Настраиваемые параметры сервера, их имена в командах управления и значения по умолчанию.
+     */
+    public enum Setting {
+        WORKERS("workers", 4, 1), // Потоки обработки запросов (поиск по истории)
+        EVENT_LOOPS("eventloops", 1, 1), // Потоки планировщика периодических задач
+        QUEUE_CONTROL("queue.control", Priority.CONTROL.getCapacity(), 1), // Емкость управляющей полосы соединения
+        QUEUE_CHAT("queue.chat", Priority.CHAT.getCapacity(), 1), // Емкость полосы чата соединения
+        QUEUE_BULK("queue.bulk", Priority.BULK.getCapacity(), 1), // Емкость полосы объемных ответов соединения
+        LINGER("linger", 0, 0), // Задержка сброса пачки в сокет, мс
+        MAX_CONNECTIONS("total", 1000, 1), // Максимум соединений всего
+        MAX_CONNECTIONS_PER_IP("perip", 20, 1), // Максимум соединений с одного IP
+        ACCEPT_RATE("rate", 100, 1), // Скорость приема подключений в секунду
+        ACCEPT_BURST("burst", 200, 1), // Допустимый всплеск подключений
+        LISTEN_BACKLOG("backlog", 128, 1), // Очередь ожидающих подключений (применяется при запуске)
+        DRAIN_TIMEOUT("drain.timeout", 5000, 1), // Крайний срок сброса очередей при остановке, мс
+        RECONNECT_DELAY("drain.reconnect", 500, 0), // Минимальная задержка переподключения, сообщаемая клиентам, мс
+        RECONNECT_JITTER("drain.jitter", 3000, 0), // Разброс задержки переподключения между клиентами, мс
+        JFR_RECEIVE_THRESHOLD("jfr.receive", 1, 0), // Порог записи события обработки сообщения в JFR, мс (0 — все)
+        JFR_BROADCAST_THRESHOLD("jfr.broadcast", 1, 0); // Порог записи события рассылки в JFR, мс (0 — все)
+
+        private final String key; // Имя параметра в командах управления
+        private final int defaultValue; // Значение по умолчанию
+        private final int minValue; // Минимально допустимое значение
+
+        Setting(String key, int defaultValue, int minValue) {
+            this.key = key;
+            this.defaultValue = defaultValue;
+            this.minValue = minValue;
+        }
+
+        /**
+         * Поиск параметра по имени из команды управления.
+         *
+         * @param key имя параметра.
+         * @return параметр или null, если такого нет.
+         */
+        public static Setting byKey(String key) {
+            for (Setting setting : values()) {
+                if (setting.key.equals(key)) return setting;
+            }
+            return null;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    /**
+     * Начальный снимок со значениями по умолчанию.
+     */
+    public static final ServerConfig DEFAULT = new ServerConfig(1,
+            Arrays.stream(Setting.values()).mapToInt(setting -> setting.defaultValue).toArray());
+
+    private final long version; // Номер версии снимка
+    private final int[] values; // Значения параметров по порядку Setting
+    private final OutboundPolicy outboundPolicy; // Политика исходящей очереди, построенная один раз на снимок
+
+    private ServerConfig(long version, int[] values) {
+        this.version = version;
+        this.values = values;
+        this.outboundPolicy = new OutboundPolicy(get(Setting.QUEUE_CONTROL), get(Setting.QUEUE_CHAT),
+                get(Setting.QUEUE_BULK), get(Setting.LINGER));
+    }
+
+    /**
+     * Создает новый снимок с измененным параметром и следующим номером версии.
+     *
+     * @param setting параметр.
+     * @param value   новое значение.
+     * @return новый снимок.
+     * @throws IllegalArgumentException если значение меньше допустимого.
+     */
+    public ServerConfig with(Setting setting, int value) {
+        if (value < setting.minValue) {
+            throw new IllegalArgumentException("Значение " + setting.key + " должно быть не меньше " + setting.minValue);
+        }
+        int[] changed = values.clone();
+        changed[setting.ordinal()] = value;
+        return new ServerConfig(version + 1, changed);
+    }
+
+    /**
+     * @param setting параметр.
+     * @return значение параметра в этом снимке.
+     */
+    public int get(Setting setting) {
+        return values[setting.ordinal()];
+    }
+
+    /**
+     * @return номер версии снимка.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return политика исходящей очереди соединений для этого снимка.
+     */
+    public OutboundPolicy getOutboundPolicy() {
+        return outboundPolicy;
+    }
+
+    /**
+     * @return описание снимка: версия и значения всех параметров.
+     */
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder("Версия ").append(version);
+        for (Setting setting : Setting.values()) {
+            description.append(", ").append(setting.key).append('=').append(get(setting));
+        }
+        return description.toString();
+    }
+}
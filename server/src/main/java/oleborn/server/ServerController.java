@@ -1,5 +1,7 @@
 package oleborn.server;
 
+import java.util.List;
+
 /**
  * Интерфейс ServerController определяет методы для управления сервером.
  * Он предоставляет базовые операции для запуска, остановки сервера,
@@ -15,10 +17,17 @@ public interface ServerController {
 
     /**
      * Остановка сервера.
-     * Этот метод останавливает сервер, закрывает все активные соединения и переводит его в неактивное состояние.
+     * Этот метод прекращает прием подключений, сбрасывает исходящие очереди клиентов в пределах
+     * крайнего срока, закрывает все активные соединения и переводит сервер в неактивное состояние.
      */
     void stopServer();
 
+    /**
+     * Перезапуск сервера.
+     * Плавно останавливает сервер и сразу запускает его снова на том же порту.
+     */
+    void restartServer();
+
     /**
      * Проверка состояния сервера.
      * Возвращает текущее состояние работы сервера.
@@ -27,6 +36,92 @@ public interface ServerController {
      */
     boolean isRunning();
 
+    /**
+     * Список пользователей, находящихся в сети.
+     *
+     * @return идентификаторы подключенных клиентов.
+     */
+    List<String> getOnlineUsers();
+
+    /**
+     * Поиск по истории сообщений, прошедших через сервер.
+     *
+     * @param query термы запроса; найдены будут сообщения, содержащие все термы.
+     * @return найденные сообщения, начиная с самых новых.
+     */
+    List<String> search(String query);
+
+    /**
+     * Статистика поискового индекса: объем, занятая память, очередь индексации.
+     *
+     * @return строка со статистикой.
+     */
+    String getSearchStats();
+
+    /**
+     * Метрики исходящих очередей соединений: глубина полос по приоритетам и отброшенные сообщения.
+     *
+     * @return строка с метриками.
+     */
+    String getMetrics();
+
+    /**
+     * Текущие ограничения на прием подключений и загрузка сервера.
+     *
+     * @return строка с описанием ограничений.
+     */
+    String getLimits();
+
+    /**
+     * Текущий снимок настраиваемых параметров сервера.
+     *
+     * @return снимок конфигурации с номером версии.
+     */
+    ServerConfig getConfig();
+
+    /**
+     * Изменение параметра на работающем сервере без перезапуска. Изменение применяется
+     * атомарно: создается новый снимок конфигурации со следующим номером версии.
+     * Очередь ожидающих подключений (backlog) применяется при следующем запуске сервера.
+     *
+     * @param setting параметр.
+     * @param value   новое значение.
+     * @return новый снимок конфигурации.
+     * @throws IllegalArgumentException если значение недопустимо.
+     */
+    ServerConfig updateConfig(ServerConfig.Setting setting, int value);
+
+    /**
+     * Запуск записи Java Flight Recorder с профилем сервера.
+     * Пороги событий сообщений и рассылки задаются параметрами конфигурации.
+     *
+     * @return описание результата.
+     */
+    String startRecording();
+
+    /**
+     * Сохранение идущей записи Java Flight Recorder в файл без ее остановки.
+     *
+     * @param file путь к файлу записи.
+     * @return описание результата.
+     */
+    String dumpRecording(String file);
+
+    /**
+     * Остановка записи Java Flight Recorder с сохранением в файл.
+     *
+     * @param file путь к файлу записи.
+     * @return описание результата.
+     */
+    String stopRecording(String file);
+
+    /**
+     * Состояние записи Java Flight Recorder.
+     *
+     * @return строка с описанием.
+     */
+    String getRecordingStatus();
+
     /**
      * Установка нового порта для сервера.
      * Этот метод задает порт, на котором сервер будет слушать подключения.
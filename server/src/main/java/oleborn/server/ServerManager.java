@@ -3,17 +3,37 @@ package oleborn.server;
 import java.io.*;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Класс ServerManager предоставляет интерфейс управления сервером через
  * подключение на определенный порт. Он поддерживает команды для запуска,
- * остановки, изменения порта и завершения работы сервера.
+ * остановки, изменения порта и завершения работы сервера, а также команды
+ * наблюдения и изменения параметров работающего сервера и управления записью
+ * Java Flight Recorder.
+ * Сеансы управления обслуживаются параллельно: один простаивающий сеанс
+ * не мешает остальным, а сеанс без команд дольше таймаута закрывается, чтобы
+ * брошенные подключения не занимали все потоки сеансов.
  */
 public class ServerManager implements Runnable {
 
+    private static final int MAX_SESSIONS = 16; // Максимум одновременных сеансов управления
+    private static final int SESSION_IDLE_TIMEOUT_MILLIS = 120_000; // Сеанс без команд закрывается через 2 минуты
+
     private final ServerController serverController; // Контроллер для управления основным сервером
     private final int managementPort; // Порт для подключения к серверу управления
     private volatile boolean running; // Флаг, указывающий, запущен ли менеджер
+    private volatile ServerSocket managementSocket; // Сокет для приема подключений управления
+    private final Set<Socket> sessionSockets = ConcurrentHashMap.newKeySet(); // Сокеты открытых сеансов
+    private final ThreadPoolExecutor sessions = new ThreadPoolExecutor(0, MAX_SESSIONS, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), ChatServer.daemonThreads("management-session")); // Потоки сеансов управления
 
     /**
      * Конструктор ServerManager, который принимает контроллер сервера и порт управления.
@@ -30,18 +50,21 @@ public class ServerManager implements Runnable {
     /**
      * Метод run() запускает сервер управления, который принимает команды
      * от клиентов, подключающихся к managementPort.
-     * Сервер управления работает в отдельном потоке.
+     * Сервер управления работает в отдельном потоке, каждый сеанс — в своем потоке из пула.
      */
     @Override
     public void run() {
         System.out.println("Сервер управления запущен на порту " + managementPort); // Сообщение о запуске менеджера сервера
-        try (ServerSocket managementSocket = new ServerSocket(managementPort)) {
+        try (ServerSocket socket = new ServerSocket(managementPort)) {
+            managementSocket = socket;
             while (running) {
                 try {
-                    Socket clientSocket = managementSocket.accept(); // Ожидание подключения клиента управления
-                    handleClient(clientSocket); // Обработка команд от клиента
+                    Socket clientSocket = socket.accept(); // Ожидание подключения клиента управления
+                    startSession(clientSocket); // Обработка команд от клиента в отдельном потоке
                 } catch (IOException e) {
-                    System.out.println("Исключение при принятии соединения управления: " + e.getMessage()); // Сообщение об ошибке при подключении клиента
+                    if (running) {
+                        System.out.println("Исключение при принятии соединения управления: " + e.getMessage()); // Сообщение об ошибке при подключении клиента
+                    }
                 }
             }
         } catch (IOException e) {
@@ -50,6 +73,23 @@ public class ServerManager implements Runnable {
         System.out.println("Сервер управления остановлен."); // Сообщение об остановке менеджера
     }
 
+    /**
+     * Запускает сеанс управления в пуле потоков. Если все потоки заняты, клиент получает отказ.
+     *
+     * @param clientSocket сокет клиента управления.
+     * @throws IOException если не удается отправить отказ.
+     */
+    private void startSession(Socket clientSocket) throws IOException {
+        clientSocket.setSoTimeout(SESSION_IDLE_TIMEOUT_MILLIS); // Ожидание команды не бесконечно
+        try {
+            sessions.execute(() -> handleClient(clientSocket));
+        } catch (RejectedExecutionException e) {
+            try (clientSocket; Writer out = new OutputStreamWriter(clientSocket.getOutputStream())) {
+                out.write("Слишком много сеансов управления\n"); // Все потоки сеансов заняты
+            }
+        }
+    }
+
     /**
      * Обрабатывает команды клиента, подключенного к серверу управления.
      * Принимает команды и отправляет ответ клиенту.
@@ -57,16 +97,25 @@ public class ServerManager implements Runnable {
      * @param clientSocket сокет клиента управления.
      */
     private void handleClient(Socket clientSocket) {
-        try (BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
+        sessionSockets.add(clientSocket);
+        try (clientSocket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
              BufferedWriter out = new BufferedWriter(new OutputStreamWriter(clientSocket.getOutputStream()))) {
+            if (!running) return; // Менеджер остановлен до начала сеанса: сокет мог не попасть в закрываемые
             String command;
             while ((command = in.readLine()) != null) {
                 String response = handleCommand(command); // Обработка команды
                 out.write(response + "\n"); // Отправка ответа клиенту
                 out.flush(); // Очистка буфера вывода
             }
+        } catch (SocketTimeoutException e) {
+            System.out.println("Сеанс управления закрыт по бездействию: " + clientSocket.getRemoteSocketAddress());
         } catch (IOException e) {
-            System.out.println("Исключение при обработке клиента управления: " + e.getMessage()); // Сообщение об исключении при обработке клиента
+            if (running) {
+                System.out.println("Исключение при обработке клиента управления: " + e.getMessage()); // Сообщение об исключении при обработке клиента
+            }
+        } finally {
+            sessionSockets.remove(clientSocket);
         }
     }
 
@@ -92,9 +141,30 @@ public class ServerManager implements Runnable {
                 }
                 yield "Сервер не запущен"; // Сообщение, если сервер не запущен
             }
+            case "restart" -> {
+                serverController.restartServer();
+                yield serverController.isRunning() ? "Сервер перезапущен" : "Сервер не удалось перезапустить"; // Результат перезапуска
+            }
             case "status" ->
                     serverController.isRunning() ? "Сервер работает" : "Сервер остановлен"; // Проверка статуса сервера
 
+            case "online" -> {
+                List<String> users = serverController.getOnlineUsers();
+                yield "В сети (" + users.size() + "): " + String.join(", ", users); // Список пользователей в сети
+            }
+
+            case "index" -> serverController.getSearchStats(); // Статистика поискового индекса
+
+            case "metrics" -> serverController.getMetrics(); // Глубина исходящих очередей
+
+            case "limits" -> serverController.getLimits(); // Ограничения на прием подключений
+
+            case "config" -> serverController.getConfig().toString(); // Текущий снимок конфигурации
+
+            case "jfr start" -> serverController.startRecording(); // Запуск записи JFR
+
+            case "jfr status" -> serverController.getRecordingStatus(); // Состояние записи JFR
+
             case "fullstop" -> {
                 serverController.fullStopApp();
                 yield "Приложение остановлено"; // Сообщение о полной остановке приложения
@@ -109,16 +179,66 @@ public class ServerManager implements Runnable {
                         yield "Неверный номер порта"; // Сообщение об ошибке в номере порта
                     }
                 }
+                if (command.startsWith("set ") || command.startsWith("limit ")) { // Изменение параметра: set <имя> <значение>
+                    String[] parts = command.split(" ");
+                    ServerConfig.Setting setting = parts.length == 3 ? ServerConfig.Setting.byKey(parts[1]) : null;
+                    if (setting == null) yield "Использование: set <параметр> <значение>; параметры: " + settingKeys();
+                    try {
+                        yield serverController.updateConfig(setting, Integer.parseInt(parts[2])).toString(); // Новый снимок
+                    } catch (IllegalArgumentException e) {
+                        yield "Неверное значение параметра: " + e.getMessage(); // Сообщение об ошибке в значении
+                    }
+                }
+                if (command.startsWith("jfr ")) { // Сохранение записи JFR: jfr dump|stop <файл>
+                    String[] parts = command.split(" ", 3);
+                    if (parts.length == 3 && parts[1].equals("dump")) yield serverController.dumpRecording(parts[2]);
+                    if (parts.length == 3 && parts[1].equals("stop")) yield serverController.stopRecording(parts[2]);
+                    yield "Использование: jfr start | jfr status | jfr dump <файл> | jfr stop <файл>";
+                }
+                if (command.startsWith("search ")) { // Поиск по истории сообщений
+                    List<String> results = serverController.search(command.substring("search ".length()));
+                    if (results.isEmpty()) yield "Ничего не найдено";
+                    yield "Найдено " + results.size() + ": " + String.join(" | ", results); // Ответ в одну строку, как у остальных команд
+                }
                 yield "Неизвестная команда"; // Сообщение о неизвестной команде
             }
         };
     }
 
+    /**
+     * @return имена настраиваемых параметров через запятую.
+     */
+    private static String settingKeys() {
+        StringBuilder keys = new StringBuilder();
+        for (ServerConfig.Setting setting : ServerConfig.Setting.values()) {
+            if (!keys.isEmpty()) keys.append(", ");
+            keys.append(setting.getKey());
+        }
+        return keys.toString();
+    }
+
     /**
      * Останавливает сервер управления.
-     * После вызова этого метода сервер управления перестает принимать новые подключения.
+     * После вызова этого метода сервер управления перестает принимать новые подключения,
+     * а сокеты открытых сеансов закрываются, что прерывает ожидающее чтение команды.
      */
     public void stopManager() {
         running = false; // Остановка сервера управления
+        sessions.shutdown(); // Новые сеансы не запускаются
+        for (Socket socket : sessionSockets) {
+            try {
+                socket.close(); // Чтение в потоке сеанса завершается исключением
+            } catch (IOException e) {
+                System.out.println("Исключение при закрытии сеанса управления: " + e.getMessage());
+            }
+        }
+        ServerSocket socket = managementSocket;
+        if (socket != null) {
+            try {
+                socket.close(); // Разблокировка ожидания подключения
+            } catch (IOException e) {
+                System.out.println("Исключение при остановке сервера управления: " + e.getMessage());
+            }
+        }
     }
 }